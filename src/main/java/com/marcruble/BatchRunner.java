@@ -0,0 +1,226 @@
+package com.marcruble;
+
+import com.marcruble.common.*;
+import com.marcruble.generators.*;
+import com.marcruble.reader.*;
+import com.marcruble.writer.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many generate and read jobs from a job file in one JVM and writes a summary report.
+ * Each line of the job file is one job (lines starting with # are comments):
+ * <pre>
+ * generate balanced balanced_4 size=4
+ * generate random random_ seed=1 rows=5 columns=5 conditions=5 files=2
+ * read src/resources/Task1 lines=14 collapse=true connector=- output=results/task1.csv
+ * </pre>
+ * Read jobs take the parameters of {@link ExperimentReader#readTask}: lines, separator (a regular
+ * expression, default " "), collapse (default false), connector (default "-") and merger, the string
+ * to join the identifiers of all levels with (default "_"). With output, the task is exported as CSV.
+ * Values containing whitespace are written in double quotes, e.g. separator="\t" or connector=" - "
+ * (a quote inside them is written as \").
+ */
+public class BatchRunner {
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 1)
+        {
+            System.out.println("Usage: BatchRunner jobFile [reportFile] [threads]");
+            return;
+        }
+
+        Path jobFile = Paths.get(args[0]);
+        Path reportFile = Paths.get(args.length > 1 ? args[1] : SquareWriter.RESULTS_FOLDER + "/batch_report.txt");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<String> jobs = Files.readAllLines(jobFile, StandardCharsets.UTF_8);
+        jobs.removeIf(l -> l.stripLeading().startsWith("#") || l.strip().isEmpty());
+
+        String report = run(jobs, threads);
+
+        if (reportFile.getParent() != null)
+            Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report, StandardCharsets.UTF_8);
+
+        System.out.println(report);
+    }
+
+    /**
+     * Runs all jobs concurrently and returns the summary report, one line per job in the given order.
+     * @param jobs lines of the job file
+     * @param threads number of jobs running at the same time
+     * @return report
+     */
+    public static String run(List<String> jobs, int threads) throws InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (String job : jobs)
+            results.add(executor.submit(() -> runJob(job)));
+
+        StringBuilder sb = new StringBuilder();
+        int failed = 0;
+
+        try {
+            for (int i = 0; i < jobs.size(); i++)
+            {
+                String result;
+
+                try {
+                    result = results.get(i).get();
+                } catch (InterruptedException e) {
+                    // stop the remaining jobs and keep the interrupt for the caller
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    result = "FAILED  " + cause;
+                    failed++;
+                }
+
+                sb.append(i + 1).append(": ").append(jobs.get(i).strip()).append("\n");
+                sb.append("    ").append(result).append("\n");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        sb.append(jobs.size()).append(" jobs, ").append(failed).append(" failed, ")
+                .append((System.nanoTime() - start) / 1_000_000).append(" ms");
+
+        return sb.toString();
+    }
+
+    /**
+     * Runs a single job.
+     * @param job line of the job file
+     * @return result line for the report
+     */
+    private static String runJob(String job) throws IOException
+    {
+        long start = System.nanoTime();
+        String[] parts = tokenize(job);
+        Map<String, String> parameters = new HashMap<>();
+
+        for (String part : parts)
+        {
+            int equals = part.indexOf('=');
+
+            if (equals > 0)
+                parameters.put(part.substring(0, equals), part.substring(equals + 1));
+        }
+
+        String result;
+
+        if (parts[0].equals("generate") && parts.length >= 3)
+        {
+            SquareGenerator generator = Generators.get(parts[1]);
+            int files = Generators.run(generator, parameters, parts[2]);
+            result = "saved " + files + " file(s)";
+        }
+        else if (parts[0].equals("read") && parts.length >= 2)
+        {
+            Task task = readTask(new File(parts[1]), parameters);
+            result = "read " + task.getNumberOfRows() + " rows";
+
+            if (parameters.containsKey("output"))
+            {
+                Experiment experiment = new Experiment();
+                experiment.addTask(task);
+                File output = new File(parameters.get("output"));
+
+                if (output.getAbsoluteFile().getParentFile() != null)
+                    Files.createDirectories(output.getAbsoluteFile().getParentFile().toPath());
+
+                ExperimentWriter.writeLongFormat(experiment, output);
+                result += ", exported to " + parameters.get("output");
+            }
+        }
+        else
+            throw new IllegalArgumentException("Unknown job, expected generate or read: " + job);
+
+        return "OK      " + (System.nanoTime() - start) / 1_000_000 + " ms, " + result;
+    }
+
+    /**
+     * Reads a task with the parameters of a read job.
+     * @param directory containing the description
+     * @param parameters of the job
+     * @return task
+     */
+    private static Task readTask(File directory, Map<String, String> parameters)
+    {
+        int lines = Generators.getInt(parameters, "lines");
+        String separator = parameters.getOrDefault("separator", " ");
+        boolean collapse = Generators.getBoolean(parameters, "collapse", false);
+        String connector = parameters.getOrDefault("connector", "-");
+        String merger = parameters.getOrDefault("merger", "_");
+
+        return ExperimentReader.readTask(directory, lines, separator, collapse, connector,
+                args -> String.join(merger, args));
+    }
+
+    /**
+     * Splits a job line at whitespace outside of double quotes. Quotes are removed,
+     * a quote inside quotes is written as \".
+     * @param job line of the job file
+     * @return parts of the line
+     */
+    private static String[] tokenize(String job)
+    {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        boolean quoted = false;
+        boolean started = false;
+
+        for (int i = 0; i < job.length(); i++)
+        {
+            char c = job.charAt(i);
+
+            if (quoted && c == '\\' && i + 1 < job.length() && job.charAt(i + 1) == '"')
+            {
+                part.append('"');
+                i++;
+            }
+            else if (c == '"')
+            {
+                quoted = !quoted;
+                started = true;
+            }
+            else if (!quoted && Character.isWhitespace(c))
+            {
+                if (started)
+                    parts.add(part.toString());
+
+                part.setLength(0);
+                started = false;
+            }
+            else
+            {
+                part.append(c);
+                started = true;
+            }
+        }
+
+        if (quoted)
+            throw new IllegalArgumentException("Unterminated quote in job: " + job);
+        if (started)
+            parts.add(part.toString());
+
+        return parts.toArray(new String[0]);
+    }
+}
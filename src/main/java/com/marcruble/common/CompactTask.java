@@ -0,0 +1,229 @@
+package com.marcruble.common;
+
+import java.util.*;
+
+/**
+ * Represents a task which keeps each distinct row of conditions only once.
+ * Participants/groups are mapped to the id of their row, so the memory needed
+ * depends on the number of distinct rows instead of the number of participants.
+ * If all rows are cyclic shifts of the first one (as in a latin square where each row
+ * is obtained from the previous by replacing each condition with its successor),
+ * only the first row, the cycle of conditions and a shift per participant are kept.
+ */
+public class CompactTask extends Task {
+
+    // distinct rows, null if cyclic
+    private final List<List<Condition>> sequences;
+
+    // id of the row for each participant/group, or its shift if cyclic
+    private final int[] rowIds;
+
+    // conditions in the order of the cycle, null if not cyclic
+    private final Condition[] cycle;
+
+    // position of each condition of the first row in the cycle, null if not cyclic
+    private final int[] basePositions;
+
+    private CompactTask(List<List<Condition>> sequences, int[] rowIds, Condition[] cycle, int[] basePositions)
+    {
+        this.sequences = sequences;
+        this.rowIds = rowIds;
+        this.cycle = cycle;
+        this.basePositions = basePositions;
+    }
+
+    /**
+     * Creates a compact copy of the given task.
+     * @param task to copy
+     * @return task storing each distinct row only once
+     */
+    public static CompactTask of(Task task)
+    {
+        // collect distinct rows
+        Map<List<Condition>, Integer> ids = new HashMap<>();
+        List<List<Condition>> sequences = new ArrayList<>();
+        int[] rowIds = new int[task.getNumberOfRows()];
+
+        for (int p = 0; p < rowIds.length; p++)
+        {
+            List<Condition> row = task.getConditions(p);
+            Integer id = ids.get(row);
+
+            if (id == null)
+            {
+                id = sequences.size();
+                row = List.copyOf(row);
+                ids.put(row, id);
+                sequences.add(row);
+            }
+
+            rowIds[p] = id;
+        }
+
+        CompactTask cyclic = asCyclic(sequences, rowIds);
+
+        if (cyclic != null)
+            return cyclic;
+
+        return new CompactTask(sequences, rowIds, null, null);
+    }
+
+    /**
+     * Tries to describe the distinct rows as shifts of the first one along one cycle of conditions.
+     * @param sequences distinct rows
+     * @param rowIds id of the row for each participant
+     * @return cyclic task or null if the rows are not cyclic
+     */
+    private static CompactTask asCyclic(List<List<Condition>> sequences, int[] rowIds)
+    {
+        if (sequences.size() < 2)
+            return null;
+
+        // the first row has to contain every condition exactly once
+        List<Condition> base = sequences.get(0);
+        Map<Condition, Integer> baseIndex = new HashMap<>();
+
+        for (int j = 0; j < base.size(); j++)
+        {
+            if (baseIndex.put(base.get(j), j) != null)
+                return null;
+        }
+
+        // the first column determines the shift of each row: follow the
+        // successors given by the second row to build the cycle
+        int size = base.size();
+        List<Condition> second = sequences.get(1);
+
+        if (second.size() != size)
+            return null;
+
+        Condition[] cycle = new Condition[size];
+        Map<Condition, Integer> cyclePosition = new HashMap<>();
+        Condition current = base.get(0);
+
+        for (int k = 0; k < size; k++)
+        {
+            if (cyclePosition.containsKey(current))
+                return null; // cycle closes too early
+
+            cycle[k] = current;
+            cyclePosition.put(current, k);
+
+            Integer index = baseIndex.get(current);
+            if (index == null)
+                return null;
+
+            current = second.get(index);
+        }
+
+        if (!current.equals(base.get(0)))
+            return null;
+
+        int[] basePositions = new int[size];
+        for (int j = 0; j < size; j++)
+            basePositions[j] = cyclePosition.get(base.get(j));
+
+        // every distinct row has to be a shift of the first one
+        int[] shifts = new int[sequences.size()];
+
+        for (int id = 0; id < sequences.size(); id++)
+        {
+            List<Condition> row = sequences.get(id);
+
+            if (row.size() != size)
+                return null;
+
+            Integer first = cyclePosition.get(row.get(0));
+            if (first == null)
+                return null;
+
+            int shift = (first - basePositions[0] + size) % size;
+
+            for (int j = 0; j < size; j++)
+            {
+                if (!row.get(j).equals(cycle[(basePositions[j] + shift) % size]))
+                    return null;
+            }
+
+            shifts[id] = shift;
+        }
+
+        int[] participantShifts = new int[rowIds.length];
+        for (int p = 0; p < rowIds.length; p++)
+            participantShifts[p] = shifts[rowIds[p]];
+
+        return new CompactTask(null, participantShifts, cycle, basePositions);
+    }
+
+    @Override
+    public void addRow()
+    {
+        throw new UnsupportedOperationException("Rows of a compact task cannot be changed");
+    }
+
+    @Override
+    public void addCondition(Condition condition)
+    {
+        throw new UnsupportedOperationException("Rows of a compact task cannot be changed");
+    }
+
+    @Override
+    public List<Condition> getConditions(int participant)
+    {
+        if (participant < 0 || participant >= rowIds.length)
+            return null;
+
+        if (!isCyclic())
+            return sequences.get(rowIds[participant]);
+
+        // view of the shifted first row without copying it
+        int shift = rowIds[participant];
+        return new AbstractList<Condition>() {
+            @Override
+            public Condition get(int index)
+            {
+                return cycle[(basePositions[index] + shift) % cycle.length];
+            }
+
+            @Override
+            public int size()
+            {
+                return basePositions.length;
+            }
+        };
+    }
+
+    @Override
+    public int getNumberOfRows()
+    {
+        return rowIds.length;
+    }
+
+    public boolean isCyclic()
+    {
+        return cycle != null;
+    }
+
+    /**
+     * Returns the number of distinct rows in this task.
+     * @return number of distinct rows
+     */
+    public int getNumberOfSequences()
+    {
+        if (!isCyclic())
+            return sequences.size();
+
+        return (int) Arrays.stream(rowIds).distinct().count();
+    }
+
+    /**
+     * Returns the id of the row of a participant/group. Participants with
+     * the same id have the same conditions.
+     * @param participant index
+     * @return id of the row (the shift if cyclic)
+     */
+    public int getSequenceId(int participant)
+    {
+        return rowIds[participant];
+    }
+}
@@ -2,16 +2,40 @@ package com.marcruble.common;
 
 /**
  * Represents a condition in the experiment identified by a string
- * of characters.
+ * of characters. Additionally, it keeps the identifiers it was merged from
+ * (one per level of the description, e.g. controller and pose) as factors.
  */
 public class Condition {
 
+    // renderer for readable names, shared by all conditions
+    private static volatile ConditionRenderer renderer = Condition::toString;
+
+    // increased with every installed renderer to invalidate cached names
+    private static volatile int rendererVersion = 0;
+
     // identifier of this condition
     private String id;
 
+    // identifiers from the highest to the lowest level
+    private String[] factors;
+
+    // readable name rendered by the current renderer, null if not rendered yet
+    private volatile Rendered rendered;
+
     public Condition(String id)
+    {
+        this(id, new String[] { id });
+    }
+
+    /**
+     * Creates a condition merged from the identifiers of several levels.
+     * @param id of the condition
+     * @param factors identifiers from the highest to the lowest level
+     */
+    public Condition(String id, String[] factors)
     {
         this.id = id;
+        this.factors = factors.clone();
     }
 
     public String getId()
@@ -19,14 +43,54 @@ public class Condition {
         return id;
     }
 
+    public String[] getFactors()
+    {
+        return factors.clone();
+    }
+
+    public String getFactor(int depth)
+    {
+        return factors[depth];
+    }
+
+    public int getNumberOfFactors()
+    {
+        return factors.length;
+    }
+
     /**
      * Returns the condition in a more readable version for a GUI.
+     * The name is rendered once by the installed renderer and then cached.
      * @return readable string
      */
     public String toReadableString()
     {
-        /** IMPLEMENT ME **/
-        return toString();
+        int version = rendererVersion;
+        Rendered current = rendered;
+
+        if (current != null && current.version == version)
+            return current.text;
+
+        // at worst, two threads render the same name
+        String text = renderer.render(this);
+        rendered = new Rendered(version, text);
+        return text;
+    }
+
+    /**
+     * Installs the renderer used for readable names of all conditions.
+     * Cached names of the previous renderer are rendered again when they are accessed.
+     * @param renderer to use, e.g. a {@link TemplateRenderer}
+     */
+    public static synchronized void setRenderer(ConditionRenderer renderer)
+    {
+        Condition.renderer = renderer;
+        rendererVersion++;
+    }
+
+    public static ConditionRenderer getRenderer()
+    {
+        return renderer;
     }
 
     @Override
@@ -43,4 +107,25 @@ public class Condition {
 
         return id.equals(((Condition)obj).getId());
     }
+
+    @Override
+    public int hashCode()
+    {
+        return id.hashCode();
+    }
+
+    /**
+     * Readable name together with the version of the renderer which produced it.
+     */
+    private static class Rendered {
+
+        private final int version;
+        private final String text;
+
+        Rendered(int version, String text)
+        {
+            this.version = version;
+            this.text = text;
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package com.marcruble.common;
+
+import java.util.*;
+
+/**
+ * Index over the factors of all conditions in a task, to find trials by factor values.
+ * Every trial (participant and position) is numbered consecutively, and for each factor value
+ * the set of trials having it is kept as a bitmap, so combined queries are just intersections.
+ */
+public class ConditionIndex {
+
+    private final Task task;
+
+    // number of the first trial of each participant, last entry is the total number
+    private final int[] offsets;
+
+    // for each depth: factor value -> trials with this value
+    private final List<Map<String, BitSet>> levels = new ArrayList<>();
+
+    // optional names of the factors, e.g. "controller" for depth 0
+    private final Map<String, Integer> names = new HashMap<>();
+
+    /**
+     * Builds the index for a task.
+     * @param task to index
+     * @param factorNames optional names for the factors from the highest to the lowest level
+     */
+    public ConditionIndex(Task task, String... factorNames)
+    {
+        this.task = task;
+        this.offsets = new int[task.getNumberOfRows() + 1];
+
+        for (int depth = 0; depth < factorNames.length; depth++)
+            names.put(factorNames[depth], depth);
+
+        int trial = 0;
+
+        for (int p = 0; p < task.getNumberOfRows(); p++)
+        {
+            offsets[p] = trial;
+
+            for (Condition condition : task.getConditions(p))
+            {
+                for (int depth = 0; depth < condition.getNumberOfFactors(); depth++)
+                {
+                    if (levels.size() <= depth)
+                        levels.add(new HashMap<>());
+
+                    levels.get(depth)
+                            .computeIfAbsent(condition.getFactor(depth), v -> new BitSet())
+                            .set(trial);
+                }
+
+                trial++;
+            }
+        }
+
+        offsets[task.getNumberOfRows()] = trial;
+    }
+
+    /**
+     * Returns all trials with the given value at the given depth.
+     * @param depth of the factor, 0 for the highest level
+     * @param value of the factor
+     * @return set of trial numbers (a copy which may be modified)
+     */
+    public BitSet query(int depth, String value)
+    {
+        if (depth < 0 || depth >= levels.size())
+            return new BitSet();
+
+        BitSet trials = levels.get(depth).get(value);
+        return trials == null ? new BitSet() : (BitSet) trials.clone();
+    }
+
+    /**
+     * Returns all trials with the given value of a named factor.
+     * @param factor name given when building the index
+     * @param value of the factor
+     * @return set of trial numbers
+     */
+    public BitSet query(String factor, String value)
+    {
+        Integer depth = names.get(factor);
+
+        if (depth == null)
+            throw new IllegalArgumentException("Unknown factor: " + factor);
+
+        return query(depth, value);
+    }
+
+    /**
+     * Returns all trials matching all given factor values,
+     * e.g. {"controller": "2", "pose": "stand"}.
+     * @param values mapping factor names to values
+     * @return set of trial numbers
+     */
+    public BitSet query(Map<String, String> values)
+    {
+        BitSet result = null;
+
+        for (Map.Entry<String, String> entry : values.entrySet())
+        {
+            BitSet trials = query(entry.getKey(), entry.getValue());
+
+            if (result == null)
+                result = trials;
+            else
+                result.and(trials);
+        }
+
+        // no restriction at all matches every trial
+        if (result == null)
+        {
+            result = new BitSet();
+            result.set(0, getNumberOfTrials());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the set of participants having at least one of the given trials.
+     * @param trials set of trial numbers
+     * @return set of participant indices
+     */
+    public BitSet getParticipants(BitSet trials)
+    {
+        BitSet participants = new BitSet();
+
+        for (int trial = trials.nextSetBit(0); trial >= 0; trial = trials.nextSetBit(trial + 1))
+        {
+            int participant = getParticipant(trial);
+            participants.set(participant);
+
+            // skip the remaining trials of this participant
+            trial = offsets[participant + 1] - 1;
+        }
+
+        return participants;
+    }
+
+    /**
+     * Returns the participant of a trial.
+     * @param trial number
+     * @return participant index
+     */
+    public int getParticipant(int trial)
+    {
+        int index = Arrays.binarySearch(offsets, trial);
+
+        if (index < 0)
+            return -index - 2;
+
+        // participants without conditions share their offset with the next one
+        while (index + 1 < offsets.length - 1 && offsets[index + 1] == trial)
+            index++;
+
+        return index;
+    }
+
+    /**
+     * Returns the position of a trial in the row of its participant.
+     * @param trial number
+     * @return position index
+     */
+    public int getPosition(int trial)
+    {
+        return trial - offsets[getParticipant(trial)];
+    }
+
+    /**
+     * Returns the condition of a trial.
+     * @param trial number
+     * @return condition
+     */
+    public Condition getCondition(int trial)
+    {
+        return task.getCondition(getParticipant(trial), getPosition(trial));
+    }
+
+    public int getNumberOfTrials()
+    {
+        return offsets[offsets.length - 1];
+    }
+}
@@ -0,0 +1,17 @@
+package com.marcruble.common;
+
+/**
+ * Turns a condition into a readable name, e.g. for station screens and protocol sheets.
+ * Install one with {@link Condition#setRenderer(ConditionRenderer)}.
+ */
+@FunctionalInterface
+public interface ConditionRenderer {
+
+    /**
+     * Returns the readable name of a condition. The result is cached by the condition,
+     * so it must only depend on the condition.
+     * @param condition to render
+     * @return readable name
+     */
+    String render(Condition condition);
+}
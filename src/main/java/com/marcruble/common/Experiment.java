@@ -31,6 +31,20 @@ public class Experiment {
         return tasks;
     }
 
+    /**
+     * Returns the number of participants with a row in all tasks.
+     * @return smallest number of rows of all tasks, 0 without tasks
+     */
+    public int getNumberOfParticipants()
+    {
+        int rows = Integer.MAX_VALUE;
+
+        for (Task task : tasks)
+            rows = Math.min(rows, task.getNumberOfRows());
+
+        return tasks.isEmpty() ? 0 : rows;
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,88 @@
+package com.marcruble.common;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Represents a task whose rows are only determined when they are accessed.
+ * Resolved rows are kept in a bounded cache, the least recently used rows
+ * are evicted first and resolved again if needed.
+ */
+public class LazyTask extends Task {
+
+    // number of rows which can be resolved
+    private final int numRows;
+
+    // determines the conditions of a participant/group
+    private final IntFunction<List<Condition>> resolver;
+
+    // recently resolved rows in access order
+    private final Map<Integer, List<Condition>> cache;
+
+    /**
+     * Creates a task resolving its rows with the given function.
+     * @param numRows number of rows in this task
+     * @param resolver mapping a participant/group to its conditions
+     * @param cacheSize maximum number of rows kept in memory
+     */
+    public LazyTask(int numRows, IntFunction<List<Condition>> resolver, int cacheSize)
+    {
+        if (cacheSize < 1)
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+
+        this.numRows = numRows;
+        this.resolver = resolver;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Condition>> eldest)
+            {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public void addRow()
+    {
+        throw new UnsupportedOperationException("Rows of a lazy task are resolved from its description");
+    }
+
+    @Override
+    public void addCondition(Condition condition)
+    {
+        throw new UnsupportedOperationException("Rows of a lazy task are resolved from its description");
+    }
+
+    @Override
+    public List<Condition> getConditions(int participant)
+    {
+        if (participant < 0 || participant >= numRows)
+            return null;
+
+        synchronized (cache)
+        {
+            List<Condition> conditions = cache.get(participant);
+
+            if (conditions != null)
+                return conditions;
+        }
+
+        // resolve without holding the lock, at worst a row is resolved twice
+        List<Condition> conditions = List.copyOf(resolver.apply(participant));
+
+        synchronized (cache)
+        {
+            cache.put(participant, conditions);
+        }
+
+        return conditions;
+    }
+
+    @Override
+    public int getNumberOfRows()
+    {
+        return numRows;
+    }
+}
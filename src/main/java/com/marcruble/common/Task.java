@@ -35,7 +35,7 @@ public class Task {
 
     public Condition getCondition(int participant, int index)
     {
-        return conditionTable.get(participant).get(index);
+        return getConditions(participant).get(index);
     }
 
     public List<Condition> getConditions(int participant)
@@ -43,12 +43,21 @@ public class Task {
         return conditionTable.get(participant);
     }
 
+    /**
+     * Returns the number of rows (participants/groups) in this task.
+     * @return number of rows
+     */
+    public int getNumberOfRows()
+    {
+        return highest + 1;
+    }
+
     @Override
     public String toString()
     {
         StringBuilder sb = new StringBuilder();
 
-        for (int i = 0; i <= highest; i++)
+        for (int i = 0; i < getNumberOfRows(); i++)
         {
             sb.append(toString(i));
             sb.append("\n-----\n");
@@ -69,11 +78,14 @@ public class Task {
         sb.append(participant);
         sb.append(":   ");
 
-        for (int j = 0; j < getConditions(participant).size(); j++)
+        // look the row up only once, it may be resolved on demand
+        List<Condition> conditions = getConditions(participant);
+
+        for (int j = 0; j < conditions.size(); j++)
         {
-            sb.append(getCondition(participant, j).toReadableString());
+            sb.append(conditions.get(j).toReadableString());
 
-            if (j < getConditions(participant).size()-1)
+            if (j < conditions.size()-1)
                 sb.append(" | ");
         }
 
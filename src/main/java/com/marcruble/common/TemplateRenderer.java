@@ -0,0 +1,209 @@
+package com.marcruble.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders conditions by filling a template with labels of their identifiers.
+ * In the template, {id} is replaced by the condition's identifier and {1}, {2}, ...
+ * by its factors from the highest to the lowest level. Each of them is replaced by
+ * its label if one was given and left as it is otherwise.
+ * <p>
+ * Example: with template "Controller {1} - {2}" and label "sit" -> "Sitting",
+ * a condition with factors 1 and sit is rendered as "Controller 1 - Sitting":
+ * <pre>
+ * Condition.setRenderer(new TemplateRenderer.Builder("Controller {1} - {2}").label("sit", "Sitting").build());
+ * </pre>
+ * A renderer cannot be changed once it is built, so names cached by the conditions stay valid
+ * and it can be used from several threads.
+ */
+public class TemplateRenderer implements ConditionRenderer {
+
+    // placeholder for the identifier in the parsed template
+    private static final int ID = -1;
+
+    // literal text in front of each placeholder, one more than placeholders
+    private final List<String> literals;
+
+    // factor index (0-based) or ID for each placeholder
+    private final List<Integer> placeholders;
+
+    private final Map<String, String> labels;
+
+    // labels only used for the factor of one level, e.g. if several levels use the identifier 1
+    private final List<Map<String, String>> levelLabels;
+
+    /**
+     * Creates a renderer for the given template without labels.
+     * @param template text with placeholders {id}, {1}, {2}, ...
+     */
+    public TemplateRenderer(String template)
+    {
+        this(new Builder(template));
+    }
+
+    private TemplateRenderer(Builder builder)
+    {
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        String template = builder.template;
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+
+        while (i < template.length())
+        {
+            int end = template.charAt(i) == '{' ? template.indexOf('}', i) : -1;
+            int placeholder = end > 0 ? parsePlaceholder(template.substring(i + 1, end)) : 0;
+
+            if (placeholder == 0)
+            {
+                // no placeholder, keep the character
+                literal.append(template.charAt(i));
+                i++;
+                continue;
+            }
+
+            literals.add(literal.toString());
+            placeholders.add(placeholder == ID ? ID : placeholder - 1);
+            literal.setLength(0);
+            i = end + 1;
+        }
+
+        literals.add(literal.toString());
+
+        this.literals = List.copyOf(literals);
+        this.placeholders = List.copyOf(placeholders);
+        this.labels = Map.copyOf(builder.labels);
+
+        List<Map<String, String>> levelLabels = new ArrayList<>();
+        for (Map<String, String> level : builder.levelLabels)
+            levelLabels.add(Map.copyOf(level));
+        this.levelLabels = List.copyOf(levelLabels);
+    }
+
+    @Override
+    public String render(Condition condition)
+    {
+        StringBuilder sb = new StringBuilder(literals.get(0));
+
+        for (int p = 0; p < placeholders.size(); p++)
+        {
+            int factor = placeholders.get(p);
+
+            if (factor == ID)
+                sb.append(lookup(condition.getId()));
+            else if (factor < condition.getNumberOfFactors())
+                sb.append(lookup(factor, condition.getFactor(factor)));
+
+            sb.append(literals.get(p + 1));
+        }
+
+        return sb.toString();
+    }
+
+    private String lookup(String identifier)
+    {
+        return labels.getOrDefault(identifier, identifier);
+    }
+
+    private String lookup(int level, String identifier)
+    {
+        if (level < levelLabels.size())
+        {
+            String label = levelLabels.get(level).get(identifier);
+
+            if (label != null)
+                return label;
+        }
+
+        return lookup(identifier);
+    }
+
+    /**
+     * Returns the placeholder for the text between braces.
+     * @param name text between braces
+     * @return ID, the 1-based factor number or 0 if it is no placeholder
+     */
+    private static int parsePlaceholder(String name)
+    {
+        if (name.equals("id"))
+            return ID;
+
+        if (!name.matches("[1-9]\\d{0,8}"))
+            return 0;
+
+        return Integer.parseInt(name);
+    }
+
+    /**
+     * Collects the template and labels of a renderer.
+     */
+    public static class Builder {
+
+        private final String template;
+        private final Map<String, String> labels = new HashMap<>();
+        private final List<Map<String, String>> levelLabels = new ArrayList<>();
+
+        /**
+         * Starts a renderer for the given template.
+         * @param template text with placeholders {id}, {1}, {2}, ...
+         */
+        public Builder(String template)
+        {
+            this.template = template;
+        }
+
+        /**
+         * Adds a label for an identifier.
+         * @param identifier of a condition or factor, e.g. 1_sit
+         * @param label to show instead, e.g. Controller 1 - Sitting
+         * @return this builder
+         */
+        public Builder label(String identifier, String label)
+        {
+            labels.put(identifier, label);
+            return this;
+        }
+
+        /**
+         * Adds a label for an identifier used in the given level only. It takes precedence over labels for all levels.
+         * @param level of the factor, starting at 1 as in the template
+         * @param identifier of the factor, e.g. sit
+         * @param label to show instead, e.g. Sitting
+         * @return this builder
+         */
+        public Builder label(int level, String identifier, String label)
+        {
+            if (level < 1)
+                throw new IllegalArgumentException("Level must be positive: " + level);
+
+            while (levelLabels.size() < level)
+                levelLabels.add(new HashMap<>());
+
+            levelLabels.get(level - 1).put(identifier, label);
+            return this;
+        }
+
+        /**
+         * Adds labels for several identifiers.
+         * @param labels mapping identifiers to their labels
+         * @return this builder
+         */
+        public Builder labels(Map<String, String> labels)
+        {
+            this.labels.putAll(labels);
+            return this;
+        }
+
+        /**
+         * Creates the renderer, later changes of this builder do not affect it.
+         * @return renderer to install with {@link Condition#setRenderer(ConditionRenderer)}
+         */
+        public TemplateRenderer build()
+        {
+            return new TemplateRenderer(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.marcruble.constraints;
+
+/**
+ * Describes a single place where a row of a design breaks a sequence constraint.
+ */
+public class ConstraintViolation implements Comparable<ConstraintViolation> {
+
+    /**
+     * Kinds of sequence constraints.
+     */
+    public enum Rule { IMMEDIATE_REPEAT, RUN_LENGTH, SPACING, FIRST_CONDITION }
+
+    private final int participant;
+
+    // position in the row, starting with 0
+    private final int position;
+
+    private final Rule rule;
+
+    private final String message;
+
+    public ConstraintViolation(int participant, int position, Rule rule, String message)
+    {
+        this.participant = participant;
+        this.position = position;
+        this.rule = rule;
+        this.message = message;
+    }
+
+    public int getParticipant()
+    {
+        return participant;
+    }
+
+    public int getPosition()
+    {
+        return position;
+    }
+
+    public Rule getRule()
+    {
+        return rule;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+
+    @Override
+    public int compareTo(ConstraintViolation other)
+    {
+        if (participant != other.participant)
+            return Integer.compare(participant, other.participant);
+        if (position != other.position)
+            return Integer.compare(position, other.position);
+
+        return rule.compareTo(other.rule);
+    }
+
+    @Override
+    public String toString()
+    {
+        return participant + ":" + position + ": " + message;
+    }
+}
@@ -0,0 +1,424 @@
+package com.marcruble.constraints;
+
+import com.marcruble.common.*;
+import com.marcruble.constraints.ConstraintViolation.Rule;
+import com.marcruble.generators.Generators;
+import com.marcruble.generators.Square;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Declarative rules for the order of conditions within a row, e.g. to audit hand-edited designs
+ * before a study or to reject rows while generating. All rules are checked in a single pass over
+ * each row with an array of counters per condition, rows are checked in parallel.
+ */
+public class SequenceConstraints {
+
+    private boolean noImmediateRepeats = false;
+
+    // longest allowed run of the same condition, for all conditions and by identifier
+    private int maxRunLength = Integer.MAX_VALUE;
+    private final Map<String, Integer> maxRunLengths = new HashMap<>();
+
+    // smallest allowed distance between positions of the same condition, for all conditions and by identifier
+    private int minSpacing = 0;
+    private final Map<String, Integer> minSpacings = new HashMap<>();
+
+    // conditions a row may start with, null if any
+    private Set<String> firstConditions = null;
+
+    // rules prepared for rows of condition values (as in squares), null if not prepared yet
+    private Rules valueRules = null;
+
+    /**
+     * Forbids the same condition directly following itself.
+     * @return these constraints
+     */
+    public SequenceConstraints noImmediateRepeats()
+    {
+        this.noImmediateRepeats = true;
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Limits how often any condition may directly follow itself.
+     * @param length maximum number of identical conditions in a row
+     * @return these constraints
+     */
+    public SequenceConstraints maxRunLength(int length)
+    {
+        this.maxRunLength = checkPositive(length, "Run length");
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Limits how often a certain condition may directly follow itself, overriding the limit for all conditions.
+     * @param condition identifier
+     * @param length maximum number of identical conditions in a row
+     * @return these constraints
+     */
+    public SequenceConstraints maxRunLength(String condition, int length)
+    {
+        maxRunLengths.put(condition, checkPositive(length, "Run length"));
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Requires identical conditions to be apart by at least the given number of positions,
+     * e.g. 3 means at least two other conditions in between.
+     * @param spacing minimum distance of positions
+     * @return these constraints
+     */
+    public SequenceConstraints minSpacing(int spacing)
+    {
+        this.minSpacing = checkPositive(spacing, "Spacing");
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Requires a certain condition to be apart from itself by at least the given number of positions,
+     * overriding the spacing for all conditions.
+     * @param condition identifier
+     * @param spacing minimum distance of positions
+     * @return these constraints
+     */
+    public SequenceConstraints minSpacing(String condition, int spacing)
+    {
+        minSpacings.put(condition, checkPositive(spacing, "Spacing"));
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Requires each row to start with one of the given conditions.
+     * @param conditions identifiers
+     * @return these constraints
+     */
+    public SequenceConstraints requireFirst(String... conditions)
+    {
+        if (firstConditions == null)
+            firstConditions = new LinkedHashSet<>();
+
+        firstConditions.addAll(Arrays.asList(conditions));
+        valueRules = null;
+        return this;
+    }
+
+    /**
+     * Creates constraints from generator parameters. Recognized are noImmediateRepeats (yes/no),
+     * maxRunLength, minSpacing and first (identifiers separated by commas), all are optional.
+     * @param parameters by name
+     * @return constraints, without rules if none of the parameters is given
+     */
+    public static SequenceConstraints fromParameters(Map<String, String> parameters)
+    {
+        SequenceConstraints constraints = new SequenceConstraints();
+
+        if (Generators.getBoolean(parameters, "noImmediateRepeats", false))
+            constraints.noImmediateRepeats();
+        if (parameters.containsKey("maxRunLength"))
+            constraints.maxRunLength(Generators.getInt(parameters, "maxRunLength"));
+        if (parameters.containsKey("minSpacing"))
+            constraints.minSpacing(Generators.getInt(parameters, "minSpacing"));
+        if (parameters.containsKey("first"))
+            constraints.requireFirst(parameters.get("first").strip().split("\\s*,\\s*"));
+
+        return constraints;
+    }
+
+    /**
+     * Returns if no rule was declared, i.e. every row is accepted.
+     * @return if there are no rules
+     */
+    public boolean isEmpty()
+    {
+        return !noImmediateRepeats && maxRunLength == Integer.MAX_VALUE && maxRunLengths.isEmpty()
+                && minSpacing <= 1 && minSpacings.isEmpty() && firstConditions == null;
+    }
+
+    /**
+     * Checks all rows of a task.
+     * @param task to check
+     * @return violations ordered by participant and position
+     */
+    public List<ConstraintViolation> check(Task task)
+    {
+        Map<String, Integer> codes = new HashMap<>();
+        Rules rules = prepare(task, codes);
+
+        return IntStream.range(0, task.getNumberOfRows())
+                .parallel()
+                .mapToObj(p -> {
+                    List<ConstraintViolation> violations = new ArrayList<>();
+                    rules.check(encode(task.getConditions(p), codes), p, violations);
+                    return violations;
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns if all rows of a task satisfy the rules.
+     * @param task to check
+     * @return if there is no violation
+     */
+    public boolean accepts(Task task)
+    {
+        Map<String, Integer> codes = new HashMap<>();
+        Rules rules = prepare(task, codes);
+
+        return IntStream.range(0, task.getNumberOfRows())
+                .parallel()
+                .allMatch(p -> rules.check(encode(task.getConditions(p), codes), p, null) == 0);
+    }
+
+    /**
+     * Checks all rows of a square. The values in the square are the identifiers of the conditions.
+     * @param square to check
+     * @return violations ordered by participant and position
+     */
+    public List<ConstraintViolation> check(Square square)
+    {
+        Rules rules = prepare(maxValue(square));
+
+        return IntStream.range(0, square.getRows())
+                .parallel()
+                .mapToObj(i -> {
+                    List<ConstraintViolation> violations = new ArrayList<>();
+                    rules.check(row(square, i), i, violations);
+                    return violations;
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns if all rows of a square satisfy the rules, e.g. to filter generated squares.
+     * @param square to check
+     * @return if there is no violation
+     */
+    public boolean accepts(Square square)
+    {
+        Rules rules = prepare(maxValue(square));
+
+        return IntStream.range(0, square.getRows())
+                .allMatch(i -> rules.check(row(square, i), i, null) == 0);
+    }
+
+    /**
+     * Returns if a single row of condition values satisfies the rules, e.g. to reject rows while generating.
+     * @param row of values, each at least 0
+     * @return if there is no violation
+     */
+    public boolean accepts(int[] row)
+    {
+        int max = 0;
+
+        for (int value : row)
+        {
+            if (value < 0)
+                throw new IllegalArgumentException("Conditions in a row must not be negative: " + value);
+
+            max = Math.max(max, value);
+        }
+
+        return prepare(max).check(row, 0, null) == 0;
+    }
+
+    /**
+     * Prepares the rules for the conditions of a task, assigning a code to each condition.
+     * @param task to check
+     * @param codes to fill with a code for each identifier
+     * @return prepared rules
+     */
+    private Rules prepare(Task task, Map<String, Integer> codes)
+    {
+        List<String> names = new ArrayList<>();
+
+        for (int p = 0; p < task.getNumberOfRows(); p++)
+        {
+            for (Condition condition : task.getConditions(p))
+            {
+                if (!codes.containsKey(condition.getId()))
+                {
+                    codes.put(condition.getId(), names.size());
+                    names.add(condition.getId());
+                }
+            }
+        }
+
+        return new Rules(names.toArray(new String[0]));
+    }
+
+    /**
+     * Prepares the rules for rows of values from 0 to the given maximum, reusing prepared rules if possible.
+     * @param maxValue highest value in the rows
+     * @return prepared rules
+     */
+    private Rules prepare(int maxValue)
+    {
+        Rules rules = valueRules;
+
+        if (rules == null || rules.names.length <= maxValue)
+        {
+            String[] names = new String[maxValue + 1];
+
+            for (int v = 0; v <= maxValue; v++)
+                names[v] = Integer.toString(v);
+
+            rules = new Rules(names);
+            valueRules = rules;
+        }
+
+        return rules;
+    }
+
+    private static int[] encode(List<Condition> conditions, Map<String, Integer> codes)
+    {
+        int[] row = new int[conditions.size()];
+
+        for (int i = 0; i < row.length; i++)
+            row[i] = codes.get(conditions.get(i).getId());
+
+        return row;
+    }
+
+    private static int[] row(Square square, int i)
+    {
+        int[] row = new int[square.getColumns()];
+
+        for (int j = 0; j < row.length; j++)
+            row[j] = square.get(i, j);
+
+        return row;
+    }
+
+    private static int maxValue(Square square)
+    {
+        int max = 0;
+
+        for (int i = 0; i < square.getRows(); i++)
+        {
+            for (int j = 0; j < square.getColumns(); j++)
+            {
+                if (square.get(i, j) < 0)
+                    throw new IllegalArgumentException("Conditions in a square must not be negative: " + square.get(i, j));
+
+                max = Math.max(max, square.get(i, j));
+            }
+        }
+
+        return max;
+    }
+
+    private static int checkPositive(int value, String name)
+    {
+        if (value < 1)
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+
+        return value;
+    }
+
+    /**
+     * Rules resolved to arrays indexed by the code of a condition.
+     */
+    private class Rules {
+
+        // identifier of each code
+        private final String[] names;
+
+        private final int[] maxRun;
+        private final int[] spacing;
+
+        // allowed first conditions, null if any
+        private final boolean[] first;
+
+        Rules(String[] names)
+        {
+            this.names = names;
+            this.maxRun = new int[names.length];
+            this.spacing = new int[names.length];
+            this.first = firstConditions == null ? null : new boolean[names.length];
+
+            for (int code = 0; code < names.length; code++)
+            {
+                maxRun[code] = maxRunLengths.getOrDefault(names[code], maxRunLength);
+                spacing[code] = minSpacings.getOrDefault(names[code], minSpacing);
+
+                if (first != null)
+                    first[code] = firstConditions.contains(names[code]);
+            }
+        }
+
+        /**
+         * Checks a single row in one pass.
+         * @param row codes of the conditions
+         * @param participant index for the violations
+         * @param violations list to add violations to, null to stop at the first violation
+         * @return number of found violations
+         */
+        int check(int[] row, int participant, List<ConstraintViolation> violations)
+        {
+            // last position of each condition, -1 if not seen yet
+            int[] lastSeen = new int[names.length];
+            Arrays.fill(lastSeen, -1);
+
+            int found = 0;
+            int run = 0;
+
+            for (int i = 0; i < row.length; i++)
+            {
+                int code = row[i];
+                run = i > 0 && row[i - 1] == code ? run + 1 : 1;
+
+                if (i == 0 && first != null && !first[code])
+                {
+                    found++;
+                    if (violations == null)
+                        return found;
+                    violations.add(new ConstraintViolation(participant, i, Rule.FIRST_CONDITION,
+                            "Row starts with " + names[code] + ", expected one of " + firstConditions));
+                }
+
+                if (noImmediateRepeats && run > 1)
+                {
+                    found++;
+                    if (violations == null)
+                        return found;
+                    violations.add(new ConstraintViolation(participant, i, Rule.IMMEDIATE_REPEAT,
+                            "Condition " + names[code] + " directly repeats"));
+                }
+
+                // report a run only once, when it becomes too long
+                if (run == maxRun[code] + 1)
+                {
+                    found++;
+                    if (violations == null)
+                        return found;
+                    violations.add(new ConstraintViolation(participant, i, Rule.RUN_LENGTH,
+                            "Condition " + names[code] + " appears more than " + maxRun[code] + " times in a row"));
+                }
+
+                if (lastSeen[code] >= 0 && i - lastSeen[code] < spacing[code])
+                {
+                    found++;
+                    if (violations == null)
+                        return found;
+                    violations.add(new ConstraintViolation(participant, i, Rule.SPACING,
+                            "Condition " + names[code] + " appears again after " + (i - lastSeen[code]) +
+                            " positions, at least " + spacing[code] + " required"));
+                }
+
+                lastSeen[code] = i;
+            }
+
+            return found;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.marcruble.diff;
+
+import com.marcruble.common.*;
+import com.marcruble.generators.Square;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the participants/groups whose rows differ between two designs, e.g. after generating
+ * a square with a new seed or editing a description. Rows are compared directly, in parallel
+ * for designs in memory and line by line for files.
+ * To check later whether a design changed without keeping it, store its fingerprint, a 64-bit
+ * hash per row. Two different rows have the same hash only with negligible chance (about 2^-64).
+ */
+public class DesignDiff {
+
+    // FNV-1a parameters for hashing single identifiers
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // odd constant mixing the identifier hashes of a row in order
+    private static final long ROW_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Compares the rows of two tasks.
+     * @param before first task
+     * @param after second task
+     * @return rows which differ
+     */
+    public static DiffResult compare(Task before, Task after)
+    {
+        return compare(before.getNumberOfRows(), p -> ids(before.getConditions(p)),
+                after.getNumberOfRows(), p -> ids(after.getConditions(p)),
+                p -> !before.getConditions(p).equals(after.getConditions(p)));
+    }
+
+    /**
+     * Compares two experiments task by task. Tasks missing in one of them are compared to an empty task.
+     * @param before first experiment
+     * @param after second experiment
+     * @return one result per task, in order
+     */
+    public static List<DiffResult> compare(Experiment before, Experiment after)
+    {
+        int numTasks = Math.max(before.getTasks().size(), after.getTasks().size());
+        List<DiffResult> results = new ArrayList<>();
+
+        for (int t = 0; t < numTasks; t++)
+        {
+            Task first = t < before.getTasks().size() ? before.getTask(t) : new Task();
+            Task second = t < after.getTasks().size() ? after.getTask(t) : new Task();
+            results.add(compare(first, second));
+        }
+
+        return results;
+    }
+
+    /**
+     * Compares the rows of two generated squares.
+     * @param before first square
+     * @param after second square
+     * @return rows which differ
+     */
+    public static DiffResult compare(Square before, Square after)
+    {
+        return compare(before.getRows(), p -> ids(before, p), after.getRows(), p -> ids(after, p),
+                p -> !sameRow(before, after, p));
+    }
+
+    /**
+     * Compares two files of rows (e.g. generated squares or description files) line by line,
+     * without reading them into memory. Empty lines and lines starting with # are skipped.
+     * @param before first file
+     * @param after second file
+     * @param separator between the identifiers, e.g. " " in line: 1 2 3
+     * @return rows which differ
+     * @throws IOException if a file cannot be read
+     */
+    public static DiffResult compareFiles(Path before, Path after, String separator) throws IOException
+    {
+        List<RowDiff> rows = new ArrayList<>();
+        int rowsBefore = 0;
+        int rowsAfter = 0;
+
+        try (BufferedReader first = Files.newBufferedReader(before, StandardCharsets.UTF_8);
+             BufferedReader second = Files.newBufferedReader(after, StandardCharsets.UTF_8))
+        {
+            String[] a = nextRow(first, separator);
+            String[] b = nextRow(second, separator);
+
+            while (a != null || b != null)
+            {
+                int participant = Math.max(rowsBefore, rowsAfter);
+
+                if (a == null || b == null || !Arrays.equals(a, b))
+                    rows.add(new RowDiff(participant, a, b));
+
+                if (a != null)
+                {
+                    rowsBefore++;
+                    a = nextRow(first, separator);
+                }
+                if (b != null)
+                {
+                    rowsAfter++;
+                    b = nextRow(second, separator);
+                }
+            }
+        }
+
+        return new DiffResult(rowsBefore, rowsAfter, rows);
+    }
+
+    /**
+     * Returns the hash of each row of a task, computed in parallel.
+     * The hashes only depend on the identifiers, so they can be stored and compared later.
+     * @param task to hash
+     * @return one hash per row
+     */
+    public static long[] fingerprint(Task task)
+    {
+        return IntStream.range(0, task.getNumberOfRows())
+                .parallel()
+                .mapToLong(p -> {
+                    List<Condition> conditions = task.getConditions(p);
+                    long hash = 0;
+
+                    for (Condition condition : conditions)
+                        hash = combine(hash, hashIdentifier(condition.getId()));
+
+                    return finish(hash, conditions.size());
+                })
+                .toArray();
+    }
+
+    /**
+     * Returns the hash of each row of a square, computed in parallel.
+     * @param square to hash
+     * @return one hash per row
+     */
+    public static long[] fingerprint(Square square)
+    {
+        return IntStream.range(0, square.getRows())
+                .parallel()
+                .mapToLong(i -> {
+                    long hash = 0;
+
+                    for (int j = 0; j < square.getColumns(); j++)
+                        hash = combine(hash, hashIdentifier(Integer.toString(square.get(i, j))));
+
+                    return finish(hash, square.getColumns());
+                })
+                .toArray();
+    }
+
+    /**
+     * Returns the hash of a single row of identifiers.
+     * @param ids of the row in order
+     * @return 64-bit hash
+     */
+    public static long hashRow(String[] ids)
+    {
+        long hash = 0;
+
+        for (String id : ids)
+            hash = combine(hash, hashIdentifier(id));
+
+        return finish(hash, ids.length);
+    }
+
+    /**
+     * Compares two designs given by their rows, finding the changed rows among the common ones in parallel.
+     * @param changed tells if a row existing in both designs differs
+     */
+    private static DiffResult compare(int rowsBefore, IntFunction<String[]> before,
+                                      int rowsAfter, IntFunction<String[]> after, IntPredicate changed)
+    {
+        int common = Math.min(rowsBefore, rowsAfter);
+
+        List<RowDiff> rows = IntStream.range(0, common)
+                .parallel()
+                .filter(changed)
+                .mapToObj(p -> new RowDiff(p, before.apply(p), after.apply(p)))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        for (int p = common; p < rowsBefore; p++)
+            rows.add(new RowDiff(p, before.apply(p), null));
+        for (int p = common; p < rowsAfter; p++)
+            rows.add(new RowDiff(p, null, after.apply(p)));
+
+        return new DiffResult(rowsBefore, rowsAfter, rows);
+    }
+
+    private static boolean sameRow(Square before, Square after, int row)
+    {
+        if (before.getColumns() != after.getColumns())
+            return false;
+
+        for (int j = 0; j < before.getColumns(); j++)
+        {
+            if (before.get(row, j) != after.get(row, j))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static long hashIdentifier(String id)
+    {
+        long hash = FNV_OFFSET;
+
+        for (int i = 0; i < id.length(); i++)
+        {
+            hash ^= id.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    private static long combine(long hash, long idHash)
+    {
+        return (hash ^ idHash) * ROW_MULTIPLIER + 1;
+    }
+
+    private static long finish(long hash, int length)
+    {
+        // include the length and spread the bits (finalizer of SplitMix64)
+        hash ^= length;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static String[] ids(List<Condition> conditions)
+    {
+        String[] ids = new String[conditions.size()];
+
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = conditions.get(i).getId();
+
+        return ids;
+    }
+
+    private static String[] ids(Square square, int row)
+    {
+        String[] ids = new String[square.getColumns()];
+
+        for (int j = 0; j < ids.length; j++)
+            ids[j] = Integer.toString(square.get(row, j));
+
+        return ids;
+    }
+
+    /**
+     * Reads the next row of identifiers, skipping empty lines and comments.
+     * @param reader to read from
+     * @param separator between the identifiers
+     * @return identifiers or null at the end of the file
+     */
+    private static String[] nextRow(BufferedReader reader, String separator) throws IOException
+    {
+        String line;
+
+        while ((line = reader.readLine()) != null)
+        {
+            if (line.strip().isEmpty() || line.stripLeading().startsWith("#"))
+                continue;
+
+            List<String> ids = new ArrayList<>();
+
+            for (String part : line.strip().split(separator))
+            {
+                part = part.strip();
+
+                if (part.length() > 0)
+                    ids.add(part);
+            }
+
+            return ids.toArray(new String[0]);
+        }
+
+        return null;
+    }
+}
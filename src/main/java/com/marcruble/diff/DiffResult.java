@@ -0,0 +1,66 @@
+package com.marcruble.diff;
+
+import java.util.List;
+
+/**
+ * Result of comparing two designs, containing only the rows which differ.
+ */
+public class DiffResult {
+
+    private final int rowsBefore;
+    private final int rowsAfter;
+    private final List<RowDiff> rows;
+
+    DiffResult(int rowsBefore, int rowsAfter, List<RowDiff> rows)
+    {
+        this.rowsBefore = rowsBefore;
+        this.rowsAfter = rowsAfter;
+        this.rows = List.copyOf(rows);
+    }
+
+    public int getRowsBefore()
+    {
+        return rowsBefore;
+    }
+
+    public int getRowsAfter()
+    {
+        return rowsAfter;
+    }
+
+    /**
+     * Returns the rows which differ, ordered by participant/group.
+     * @return list of row differences
+     */
+    public List<RowDiff> getChangedRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Returns if both designs contain the same rows.
+     * @return if there is no difference
+     */
+    public boolean isEmpty()
+    {
+        return rows.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rows.size());
+        sb.append(" of ");
+        sb.append(Math.max(rowsBefore, rowsAfter));
+        sb.append(" rows changed\n");
+
+        for (RowDiff row : rows)
+        {
+            sb.append(row.toString());
+            sb.append("\n");
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.marcruble.diff;
+
+import java.util.Arrays;
+
+/**
+ * Describes how the row of a single participant/group differs between two designs.
+ */
+public class RowDiff {
+
+    private final int participant;
+
+    // identifiers of the row in both designs, null if the row does not exist
+    private final String[] before;
+    private final String[] after;
+
+    // positions at which the identifiers differ
+    private final int[] changedPositions;
+
+    RowDiff(int participant, String[] before, String[] after)
+    {
+        this.participant = participant;
+        this.before = before;
+        this.after = after;
+        this.changedPositions = findChanges(before == null ? new String[0] : before,
+                after == null ? new String[0] : after);
+    }
+
+    public int getParticipant()
+    {
+        return participant;
+    }
+
+    /**
+     * Returns the identifiers of the row in the first design.
+     * @return identifiers or null if the row was added
+     */
+    public String[] getBefore()
+    {
+        return before == null ? null : before.clone();
+    }
+
+    /**
+     * Returns the identifiers of the row in the second design.
+     * @return identifiers or null if the row was removed
+     */
+    public String[] getAfter()
+    {
+        return after == null ? null : after.clone();
+    }
+
+    public boolean isAdded()
+    {
+        return before == null;
+    }
+
+    public boolean isRemoved()
+    {
+        return after == null;
+    }
+
+    /**
+     * Returns the positions in the row at which the identifiers differ,
+     * including positions which only exist in one of the designs.
+     * @return positions in ascending order
+     */
+    public int[] getChangedPositions()
+    {
+        return changedPositions.clone();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(participant);
+        sb.append(":   ");
+
+        if (isAdded())
+            return sb.append("+ ").append(String.join(" ", after)).toString();
+        if (isRemoved())
+            return sb.append("- ").append(String.join(" ", before)).toString();
+
+        for (int k = 0; k < changedPositions.length; k++)
+        {
+            int position = changedPositions[k];
+
+            if (k > 0)
+                sb.append(" | ");
+
+            sb.append(position);
+            sb.append(": ");
+            sb.append(position < before.length ? before[position] : "");
+            sb.append(" -> ");
+            sb.append(position < after.length ? after[position] : "");
+        }
+
+        return sb.toString();
+    }
+
+    private static int[] findChanges(String[] before, String[] after)
+    {
+        int length = Math.max(before.length, after.length);
+        int[] positions = new int[length];
+        int count = 0;
+
+        for (int i = 0; i < length; i++)
+        {
+            if (i >= before.length || i >= after.length || !before[i].equals(after[i]))
+                positions[count++] = i;
+        }
+
+        return Arrays.copyOf(positions, count);
+    }
+}
@@ -0,0 +1,53 @@
+package com.marcruble.generators;
+
+/**
+ * Square backed by a 2D array of condition identifiers.
+ */
+public class ArraySquare implements Square {
+
+    private final int[][] cells;
+
+    public ArraySquare(int[][] cells)
+    {
+        this.cells = cells;
+    }
+
+    /**
+     * Returns a square holding all cells of the given one in an array, computing them if necessary.
+     * @param square to copy
+     * @return the given square if it already is an array square, a copy otherwise
+     */
+    public static ArraySquare of(Square square)
+    {
+        if (square instanceof ArraySquare)
+            return (ArraySquare) square;
+
+        int[][] cells = new int[square.getRows()][square.getColumns()];
+
+        for (int i = 0; i < cells.length; i++)
+        {
+            for (int j = 0; j < cells[i].length; j++)
+                cells[i][j] = square.get(i, j);
+        }
+
+        return new ArraySquare(cells);
+    }
+
+    @Override
+    public int getRows()
+    {
+        return cells.length;
+    }
+
+    @Override
+    public int getColumns()
+    {
+        return cells.length == 0 ? 0 : cells[0].length;
+    }
+
+    @Override
+    public int get(int row, int column)
+    {
+        return cells[row][column];
+    }
+}
@@ -1,15 +1,11 @@
 package com.marcruble.generators;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
-public class BalancedLatinSquareGenerator {
+public class BalancedLatinSquareGenerator implements SquareGenerator {
 
     /**
      * Generates a balanced latin square with given number of conditions
@@ -24,89 +20,83 @@ public class BalancedLatinSquareGenerator {
      */
     public static void Generate(int size, String fileName)
     {
-        // first generate a 2D array, then transform to string
-        int[][] square = new int[size][size];
-        StringBuilder text = new StringBuilder();
+        Generators.save("balanced latin square", Stream.generate(() -> createSquare(size)).limit(1).iterator(),
+                fileName, Generators.Numbering.NEVER);
+    }
 
+    /**
+     * Returns a balanced latin square with given number of conditions.
+     * Only the first line is kept, all cells are computed from it when accessed.
+     * @param size number of conditions
+     * @return square with size lines, or 2*size lines if size is odd
+     */
+    public static Square createSquare(int size)
+    {
         // generate first line of balanced latin square
+        int[] first = new int[size];
         int forward = 2;
         int backward = 0;
 
         for (int i = 0; i < size; i++)
         {
             if (i == 0)
-                square[0][i] = 1;
+                first[i] = 1;
             else if (i % 2 != 0)
-                square[0][i] = forward++;
+                first[i] = forward++;
             else
-                square[0][i] = size - (backward++);
-        }
-
-        // now generate the following lines by adding one to all
-        for (int i = 1; i < size; i++) //rows
-        {
-            for (int j = 0; j < size; j++) //columns
-            {
-                int next = square[i-1][j] + 1;
-                if (next > size)
-                    square[i][j] = next % size;
-                else
-                    square[i][j] = next;
-            }
+                first[i] = size - (backward++);
         }
 
         // if size is odd, we need a mirrored version too
-        int[][] mirrored = new int[size][size];
+        boolean mirrored = size % 2 != 0;
 
-        if (size % 2 != 0)
-        {
-            for (int i = 0; i < size; i++) //rows
+        return new Square() {
+            @Override
+            public int getRows()
             {
-                for (int j = 0; j < size; j++) //columns
-                {
-                    mirrored[i][j] = square[i][size - j - 1];
-                }
+                return mirrored ? 2 * size : size;
             }
-        }
 
-        // convert to string
-        for (int i = 0; i < size; i++) //rows
-        {
-            for (int j = 0; j < size; j++) //columns
+            @Override
+            public int getColumns()
             {
-                text.append(square[i][j]);
-                text.append(" ");
+                return size;
             }
-            text.append("\n");
-        }
 
-        if (size % 2 != 0)
-        {
-            // add mirrored version also
-            for (int i = 0; i < size; i++) //rows
+            @Override
+            public int get(int row, int column)
             {
-                for (int j = 0; j < size; j++) //columns
+                // the mirrored lines follow after the normal ones
+                if (row >= size)
                 {
-                    text.append(mirrored[i][j]);
-                    text.append(" ");
+                    row -= size;
+                    column = size - column - 1;
                 }
-                text.append("\n");
+
+                // the following lines are generated by adding one to all
+                return (first[column] - 1 + row) % size + 1;
             }
-        }
+        };
+    }
 
-        // make sure file has correct ending
-        if (!fileName.endsWith(".txt"))
-            fileName += ".txt";
-
-        // save file in results folder
-        Path path = Paths.get("results/" + fileName);
-        try {
-            new File("results").mkdir(); // make sure results folder exists
-            Files.writeString(path, text.toString().strip(), StandardCharsets.UTF_8, StandardOpenOption.CREATE);
-        } catch (IOException e) {
-            System.err.println("[Error] occured while saving Balanced Latin Square");
-            e.printStackTrace();
-        }
+    @Override
+    public String getName()
+    {
+        return "balanced";
+    }
+
+    @Override
+    public List<String> getParameters()
+    {
+        return List.of("size");
+    }
+
+    @Override
+    public Stream<Square> generate(Map<String, String> parameters)
+    {
+        int size = Generators.getInt(parameters, "size");
+
+        return Stream.generate(() -> createSquare(size)).limit(1);
     }
 
     public static void main(String[] args)
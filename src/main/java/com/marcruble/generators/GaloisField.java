@@ -0,0 +1,226 @@
+package com.marcruble.generators;
+
+/**
+ * Finite field with a prime power number of elements. Elements are numbered
+ * 0, ..., order-1 by reading the coefficients of their polynomial as digits in base p.
+ */
+class GaloisField {
+
+    private final int order;
+
+    // results of all additions and multiplications
+    private final int[][] sum;
+    private final int[][] product;
+
+    /**
+     * Creates the field of given order.
+     * @param order number of elements, has to be a prime power
+     */
+    GaloisField(int order)
+    {
+        int p = smallestPrimeFactor(order);
+        int degree = 0;
+
+        for (int rest = order; rest > 1; rest /= p)
+        {
+            if (rest % p != 0)
+                throw new IllegalArgumentException("Order of a finite field has to be a prime power: " + order);
+            degree++;
+        }
+
+        this.order = order;
+        this.sum = new int[order][order];
+        this.product = new int[order][order];
+
+        // polynomial to reduce products with, given by its coefficients below the leading one
+        int[] modulus = findIrreducible(p, degree);
+
+        for (int a = 0; a < order; a++)
+        {
+            for (int b = 0; b < order; b++)
+            {
+                sum[a][b] = encode(add(decode(a, p, degree), decode(b, p, degree), p), p);
+                product[a][b] = encode(multiply(decode(a, p, degree), decode(b, p, degree), modulus, p), p);
+            }
+        }
+    }
+
+    int getOrder()
+    {
+        return order;
+    }
+
+    int add(int a, int b)
+    {
+        return sum[a][b];
+    }
+
+    int multiply(int a, int b)
+    {
+        return product[a][b];
+    }
+
+    /**
+     * Returns if the given number is a prime power.
+     * @param n number to check
+     * @return if n = p^k for a prime p and k >= 1
+     */
+    static boolean isPrimePower(int n)
+    {
+        if (n < 2)
+            return false;
+
+        int p = smallestPrimeFactor(n);
+
+        while (n % p == 0)
+            n /= p;
+
+        return n == 1;
+    }
+
+    static int smallestPrimeFactor(int n)
+    {
+        for (int p = 2; p * p <= n; p++)
+        {
+            if (n % p == 0)
+                return p;
+        }
+        return n;
+    }
+
+    private static int[] decode(int element, int p, int degree)
+    {
+        int[] coefficients = new int[degree];
+
+        for (int i = 0; i < degree; i++)
+        {
+            coefficients[i] = element % p;
+            element /= p;
+        }
+
+        return coefficients;
+    }
+
+    private static int encode(int[] coefficients, int p)
+    {
+        int element = 0;
+
+        for (int i = coefficients.length - 1; i >= 0; i--)
+            element = element * p + coefficients[i];
+
+        return element;
+    }
+
+    private static int[] add(int[] a, int[] b, int p)
+    {
+        int[] result = new int[a.length];
+
+        for (int i = 0; i < a.length; i++)
+            result[i] = (a[i] + b[i]) % p;
+
+        return result;
+    }
+
+    /**
+     * Multiplies two polynomials of degree below k modulo x^k + modulus.
+     */
+    private static int[] multiply(int[] a, int[] b, int[] modulus, int p)
+    {
+        int degree = a.length;
+        int[] full = new int[2 * degree];
+
+        for (int i = 0; i < degree; i++)
+        {
+            for (int j = 0; j < degree; j++)
+                full[i + j] = (full[i + j] + a[i] * b[j]) % p;
+        }
+
+        // replace x^k by -modulus from the highest power downwards
+        for (int i = 2 * degree - 1; i >= degree; i--)
+        {
+            int factor = full[i];
+            full[i] = 0;
+
+            for (int j = 0; j < degree; j++)
+                full[i - degree + j] = ((full[i - degree + j] - factor * modulus[j]) % p + p) % p;
+        }
+
+        int[] result = new int[degree];
+        System.arraycopy(full, 0, result, 0, degree);
+        return result;
+    }
+
+    /**
+     * Finds a monic irreducible polynomial x^k + ... over the integers modulo p.
+     * @return its coefficients below the leading one
+     */
+    private static int[] findIrreducible(int p, int degree)
+    {
+        int candidates = (int) Math.pow(p, degree);
+
+        for (int c = 0; c < candidates; c++)
+        {
+            int[] modulus = decode(c, p, degree);
+
+            if (isIrreducible(modulus, p))
+                return modulus;
+        }
+
+        throw new IllegalStateException("No irreducible polynomial found");
+    }
+
+    /**
+     * Checks if x^k + modulus has no monic factor of degree 1, ..., k/2.
+     */
+    private static boolean isIrreducible(int[] modulus, int p)
+    {
+        int degree = modulus.length;
+
+        // full coefficient list including the leading one
+        int[] polynomial = new int[degree + 1];
+        System.arraycopy(modulus, 0, polynomial, 0, degree);
+        polynomial[degree] = 1;
+
+        for (int d = 1; d <= degree / 2; d++)
+        {
+            int candidates = (int) Math.pow(p, d);
+
+            for (int c = 0; c < candidates; c++)
+            {
+                int[] divisor = new int[d + 1];
+                System.arraycopy(decode(c, p, d), 0, divisor, 0, d);
+                divisor[d] = 1;
+
+                if (divides(divisor, polynomial, p))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns if the monic divisor divides the polynomial without remainder.
+     */
+    private static boolean divides(int[] divisor, int[] polynomial, int p)
+    {
+        int[] rest = polynomial.clone();
+        int d = divisor.length - 1;
+
+        for (int i = rest.length - 1; i >= d; i--)
+        {
+            int factor = rest[i];
+
+            for (int j = 0; j <= d; j++)
+                rest[i - d + j] = ((rest[i - d + j] - factor * divisor[j]) % p + p) % p;
+        }
+
+        for (int i = 0; i < d; i++)
+        {
+            if (rest[i] != 0)
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package com.marcruble.generators;
+
+import java.util.Map;
+
+/**
+ * A single run of a generator with its parameters and the name of the resulting file(s).
+ */
+public class GenerationJob {
+
+    private final SquareGenerator generator;
+    private final Map<String, String> parameters;
+    private final String fileName;
+
+    public GenerationJob(SquareGenerator generator, Map<String, String> parameters, String fileName)
+    {
+        this.generator = generator;
+        this.parameters = Map.copyOf(parameters);
+        this.fileName = fileName;
+    }
+
+    public SquareGenerator getGenerator()
+    {
+        return generator;
+    }
+
+    public Map<String, String> getParameters()
+    {
+        return parameters;
+    }
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    @Override
+    public String toString()
+    {
+        return generator.getName() + " " + parameters + " -> " + fileName;
+    }
+}
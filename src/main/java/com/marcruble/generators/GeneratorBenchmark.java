@@ -0,0 +1,157 @@
+package com.marcruble.generators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the throughput of any registered generator, with and without writing
+ * the text output (to a writer discarding everything, so the disk is not measured).
+ * Usage: GeneratorBenchmark generator iterations [parallel] [name=value ...]
+ * e.g. GeneratorBenchmark random 1000 seed=1 rows=100 columns=10 conditions=10
+ */
+public class GeneratorBenchmark {
+
+    /**
+     * Result of a benchmark run.
+     */
+    public static class Result {
+
+        private final long cells;
+        private final long generateNanos;
+        private final long writeNanos;
+
+        Result(long cells, long generateNanos, long writeNanos)
+        {
+            this.cells = cells;
+            this.generateNanos = generateNanos;
+            this.writeNanos = writeNanos;
+        }
+
+        public long getCells()
+        {
+            return cells;
+        }
+
+        public double getGeneratedCellsPerSecond()
+        {
+            return generateNanos == 0 ? 0 : cells * 1e9 / generateNanos;
+        }
+
+        public double getWrittenCellsPerSecond()
+        {
+            return writeNanos == 0 ? 0 : cells * 1e9 / writeNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return cells + " cells, generated " + Math.round(getGeneratedCellsPerSecond()) + " cells/s, "
+                    + "written " + Math.round(getWrittenCellsPerSecond()) + " cells/s";
+        }
+    }
+
+    /**
+     * Runs a generator several times, after the same number of warm-up runs.
+     * @param generator to measure
+     * @param parameters for the generator
+     * @param iterations number of measured runs
+     * @param parallel if the runs should be spread across threads
+     * @return measured throughput
+     */
+    public static Result run(SquareGenerator generator, Map<String, String> parameters,
+                             int iterations, boolean parallel)
+    {
+        measure(generator, parameters, iterations, parallel, false);
+
+        long start = System.nanoTime();
+        long cells = measure(generator, parameters, iterations, parallel, false);
+        long generateNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        measure(generator, parameters, iterations, parallel, true);
+        long writeNanos = System.nanoTime() - start;
+
+        // writing includes generating, subtract it to get the writer alone
+        return new Result(cells, generateNanos, Math.max(1, writeNanos - generateNanos));
+    }
+
+    /**
+     * Runs the generator and touches every generated cell.
+     * @return number of generated cells
+     */
+    private static long measure(SquareGenerator generator, Map<String, String> parameters,
+                                int iterations, boolean parallel, boolean write)
+    {
+        IntStream runs = IntStream.range(0, iterations);
+
+        if (parallel)
+            runs = runs.parallel();
+
+        return runs.mapToLong(i -> generator.generate(parameters)
+                .mapToLong(square -> write ? write(square) : touch(square))
+                .sum())
+                .sum();
+    }
+
+    /**
+     * Reads all cells of a square, lazily computed squares are generated this way.
+     * @return number of cells
+     */
+    private static long touch(Square square)
+    {
+        long sum = 0;
+
+        for (int i = 0; i < square.getRows(); i++)
+        {
+            for (int j = 0; j < square.getColumns(); j++)
+                sum += square.get(i, j);
+        }
+
+        // the sum is never negative, the check only keeps the loop from being removed
+        return sum >= 0 ? (long) square.getRows() * square.getColumns() : 0;
+    }
+
+    /**
+     * Writes a square to a writer discarding everything.
+     * @return number of cells
+     */
+    private static long write(Square square)
+    {
+        try {
+            SquareWriter.write(square, Writer.nullWriter());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return (long) square.getRows() * square.getColumns();
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: GeneratorBenchmark generator iterations [parallel] [name=value ...]");
+            System.out.println("Available generators: " + Generators.load().keySet());
+            return;
+        }
+
+        SquareGenerator generator = Generators.get(args[0]);
+        int iterations = Integer.parseInt(args[1]);
+        boolean parallel = false;
+        Map<String, String> parameters = new HashMap<>();
+
+        for (int i = 2; i < args.length; i++)
+        {
+            if (args[i].equals("parallel"))
+                parallel = true;
+            else if (args[i].contains("="))
+                parameters.put(args[i].substring(0, args[i].indexOf('=')), args[i].substring(args[i].indexOf('=') + 1));
+        }
+
+        System.out.println(generator.getName() + ": " + run(generator, parameters, iterations, parallel));
+    }
+}
@@ -0,0 +1,195 @@
+package com.marcruble.generators;
+
+import com.marcruble.metrics.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Finds all available {@link SquareGenerator} plugins and runs them.
+ */
+public class Generators {
+
+    /**
+     * How the files of generated squares are named.
+     */
+    enum Numbering {
+        // always extend the file name with the number of the square
+        ALWAYS,
+        // never extend the file name
+        NEVER,
+        // extend the file name only if there is more than one square
+        IF_SEVERAL
+    }
+
+    /**
+     * Returns all generators registered as service, by name. The services are only looked up once,
+     * on first use.
+     * @return unmodifiable map of generator names to generators
+     */
+    public static Map<String, SquareGenerator> load()
+    {
+        return Registry.GENERATORS;
+    }
+
+    /**
+     * Returns the generator with the given name.
+     * @param name of the generator
+     * @return generator
+     */
+    public static SquareGenerator get(String name)
+    {
+        Map<String, SquareGenerator> generators = load();
+        SquareGenerator generator = generators.get(name);
+
+        if (generator == null)
+            throw new IllegalArgumentException("Unknown generator: " + name + ", available are " + generators.keySet());
+
+        return generator;
+    }
+
+    /**
+     * Generates squares and saves them in the results folder. A single square is saved
+     * with the given file name, several squares are numbered starting with 1.
+     * @param generator to run
+     * @param parameters for the generator
+     * @param fileName name of file (without number and .txt)
+     * @return number of saved files
+     */
+    public static int run(SquareGenerator generator, Map<String, String> parameters, String fileName)
+    {
+        return save(generator.getName(), generator.generate(parameters).iterator(), fileName, Numbering.IF_SEVERAL);
+    }
+
+    /**
+     * Runs a batch of generators in parallel.
+     * @param jobs to run
+     * @return number of saved files per job, in the same order
+     */
+    public static List<Integer> runAll(List<GenerationJob> jobs)
+    {
+        return jobs.parallelStream()
+                .map(job -> run(job.getGenerator(), job.getParameters(), job.getFileName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saves squares one after the other, while measuring the time spent generating them.
+     * The squares should be created lazily by the iterator, so their creation is measured.
+     * @param name of the generator for metrics and error messages
+     * @param squares to save
+     * @param fileName name of file (without number and .txt)
+     * @param numbering if the file name should be extended with the number of the square
+     * @return number of saved files
+     */
+    static int save(String name, Iterator<Square> squares, String fileName, Numbering numbering)
+    {
+        int saved = 0;
+        int index = 0;
+        Square current = next(name, squares);
+
+        while (current != null)
+        {
+            // look one square ahead to know if numbers are needed
+            Square following = next(name, squares);
+
+            boolean numbered = numbering == Numbering.ALWAYS
+                    || numbering == Numbering.IF_SEVERAL && (following != null || index > 0);
+
+            index++;
+
+            if (SquareWriter.write(current, numbered ? fileName + index : fileName, name))
+                saved++;
+
+            current = following;
+        }
+
+        return saved;
+    }
+
+    /**
+     * Generates the next square and reports the time spent. Only if the metrics are recorded,
+     * squares computing their cells on access are copied into an array, so computing the cells
+     * is measured as well. Otherwise they are passed on unchanged and computed while writing.
+     * @param name of the generator for metrics
+     * @param squares to take the next one from
+     * @return square or null if there are no more
+     */
+    private static Square next(String name, Iterator<Square> squares)
+    {
+        MetricsListener metrics = Metrics.get();
+        long start = System.nanoTime();
+        long allocatedBefore = Metrics.isTrackingAllocations() ? Metrics.allocatedBytes() : 0;
+
+        if (!squares.hasNext())
+            return null;
+
+        Square square = squares.next();
+
+        if (metrics == Metrics.NONE && !Metrics.isTrackingAllocations())
+            return square;
+
+        square = ArraySquare.of(square);
+        metrics.cellsGenerated(name, (long) square.getRows() * square.getColumns(), System.nanoTime() - start);
+
+        if (Metrics.isTrackingAllocations())
+            metrics.allocated("generate", Metrics.allocatedBytes() - allocatedBefore);
+
+        return square;
+    }
+
+    /**
+     * Returns a required integer parameter.
+     * @param parameters to read from
+     * @param name of the parameter
+     * @return value
+     */
+    public static int getInt(Map<String, String> parameters, String name)
+    {
+        String value = parameters.get(name);
+
+        if (value == null)
+            throw new IllegalArgumentException("Missing parameter: " + name);
+
+        try {
+            return Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Returns an optional yes/no parameter, also accepting true/false.
+     * @param parameters to read from
+     * @param name of the parameter
+     * @param defaultValue if the parameter is missing
+     * @return value
+     */
+    public static boolean getBoolean(Map<String, String> parameters, String name, boolean defaultValue)
+    {
+        String value = parameters.get(name);
+
+        if (value == null)
+            return defaultValue;
+
+        return value.strip().equals("yes") || value.strip().equals("true");
+    }
+
+    /**
+     * Generators registered as service, loaded when first needed.
+     */
+    private static class Registry {
+
+        static final Map<String, SquareGenerator> GENERATORS;
+
+        static
+        {
+            Map<String, SquareGenerator> generators = new TreeMap<>();
+
+            for (SquareGenerator generator : ServiceLoader.load(SquareGenerator.class))
+                generators.put(generator.getName(), generator);
+
+            GENERATORS = Collections.unmodifiableMap(generators);
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.marcruble.generators;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class LatinSquareEnumerator implements SquareGenerator {
+
+    // largest supported order, symbols are kept in bits of an int
+    public static final int MAX_SIZE = 31;
+
+    /**
+     * Returns a stream of latin squares of given size which cannot be turned into each other
+     * by renaming conditions or reordering rows, one for each class of squares under these
+     * symmetries. Each is the smallest square of its class (read row by row), so it is reduced,
+     * i.e. first row and first column are in order 1, 2, ..., size.
+     * Only feasible for small sizes (there are already 16,942,080 reduced squares of size 7 to search).
+     * @param size number of conditions
+     * @param balanced if only balanced latin squares should be returned, i.e. each condition
+     *                 directly follows each other condition exactly once
+     * @param parallel if the search should be split across threads
+     * @return stream of squares with condition identifiers from 1 to size
+     */
+    public static Stream<int[][]> stream(int size, boolean balanced, boolean parallel)
+    {
+        return search(size, balanced, true, parallel);
+    }
+
+    /**
+     * Returns a stream of all reduced latin squares of given size.
+     * @param distinct if only the smallest square of each class should be returned
+     */
+    private static Stream<int[][]> search(int size, boolean balanced, boolean distinct, boolean parallel)
+    {
+        if (size < 1 || size > MAX_SIZE)
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SIZE + ": " + size);
+
+        // split the search by the choices for the second row, each part is searched sequentially
+        List<Search> parts = new ArrayList<>();
+        new Search(size, balanced, distinct).split(parts);
+
+        Stream<Search> stream = parallel ? parts.parallelStream() : parts.stream();
+
+        return stream.flatMap(part -> StreamSupport.stream(part.spliterator(), false));
+    }
+
+    /**
+     * Returns an iterator over the latin squares of given size, see {@link #stream}.
+     * @param size number of conditions
+     * @param balanced if only balanced latin squares should be returned
+     * @return iterator over squares with condition identifiers from 1 to size
+     */
+    public static Iterator<int[][]> iterator(int size, boolean balanced)
+    {
+        return stream(size, balanced, false).iterator();
+    }
+
+    /**
+     * Counts the latin squares of given size in parallel, see {@link #stream}.
+     * @param size number of conditions
+     * @param balanced if only balanced latin squares should be counted
+     * @return number of squares which cannot be turned into each other
+     */
+    public static long count(int size, boolean balanced)
+    {
+        return stream(size, balanced, true).count();
+    }
+
+    /**
+     * Draws latin squares at random from all latin squares of given size (or all balanced ones).
+     * Latin squares are drawn with the Markov chain of Jacobson and Matthews, which needs no
+     * enumeration and is close to uniform after size^3 steps. Balanced squares are drawn uniformly
+     * from a single pass over the reduced ones, keeping only the drawn ones, which is only
+     * feasible as far as {@link #stream} is.
+     * @param size number of conditions
+     * @param balanced if only balanced latin squares should be drawn
+     * @param count number of squares to draw (with replacement)
+     * @param random generator to use
+     * @return list of squares, empty if no square exists
+     */
+    public static List<int[][]> sample(int size, boolean balanced, int count, Random random)
+    {
+        if (count < 0)
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+
+        if (!balanced)
+        {
+            if (size < 1 || size > MAX_SIZE)
+                throw new IllegalArgumentException("Size must be between 1 and " + MAX_SIZE + ": " + size);
+
+            Walk walk = new Walk(size, random);
+            List<int[][]> samples = new ArrayList<>();
+
+            for (int k = 0; k < count; k++)
+            {
+                walk.steps(size * size * size);
+                samples.add(walk.square());
+            }
+
+            return samples;
+        }
+
+        // one reservoir of a single square for each draw
+        int[][][] drawn = new int[count][][];
+        long seen = 0;
+
+        for (Iterator<int[][]> it = search(size, true, false, false).iterator(); it.hasNext(); )
+        {
+            int[][] square = it.next();
+            seen++;
+
+            for (int k = 0; k < count; k++)
+            {
+                if (random.nextDouble() * seen < 1)
+                    drawn[k] = square;
+            }
+        }
+
+        List<int[][]> samples = new ArrayList<>();
+
+        if (seen == 0)
+            return samples;
+
+        for (int[][] square : drawn)
+        {
+            // every square is obtained from a reduced one by permuting symbols and rows
+            int[] symbols = randomPermutation(size, random);
+            int[] rows = randomPermutation(size, random);
+            int[][] result = new int[size][size];
+
+            for (int i = 0; i < size; i++)
+            {
+                for (int j = 0; j < size; j++)
+                    result[rows[i]][j] = symbols[square[i][j] - 1] + 1;
+            }
+
+            samples.add(result);
+        }
+
+        return samples;
+    }
+
+    /**
+     * Enumerates latin squares of given size and saves the first ones in separate files.
+     * @param size number of conditions
+     * @param balanced if only balanced latin squares should be saved
+     * @param limit maximum number of files
+     * @param fileName starting name of files, extended by the number and .txt
+     * @return number of saved files
+     */
+    public static int Generate(int size, boolean balanced, int limit, String fileName)
+    {
+        Iterator<Square> squares = stream(size, balanced, false)
+                .limit(limit)
+                .map(square -> (Square) new ArraySquare(square))
+                .iterator();
+
+        return Generators.save("latin square enumeration", squares, fileName, Generators.Numbering.ALWAYS);
+    }
+
+    @Override
+    public String getName()
+    {
+        return "enumeration";
+    }
+
+    @Override
+    public List<String> getParameters()
+    {
+        return List.of("size", "balanced", "limit");
+    }
+
+    @Override
+    public Stream<Square> generate(Map<String, String> parameters)
+    {
+        int size = Generators.getInt(parameters, "size");
+        boolean balanced = Generators.getBoolean(parameters, "balanced", false);
+        int limit = Generators.getInt(parameters, "limit");
+
+        return stream(size, balanced, false)
+                .limit(limit)
+                .map(ArraySquare::new);
+    }
+
+    /**
+     * Returns a random permutation of 0, ..., size-1.
+     * @param size of permutation
+     * @param random generator to use
+     * @return permutation
+     */
+    private static int[] randomPermutation(int size, Random random)
+    {
+        int[] permutation = new int[size];
+
+        for (int i = 0; i < size; i++)
+            permutation[i] = i;
+
+        for (int i = size - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+
+        return permutation;
+    }
+
+    /**
+     * Backtracking search filling a reduced latin square cell by cell, row by row.
+     * Symbols still allowed in a row or column are kept as bitmasks.
+     */
+    private static class Search {
+
+        private final int size;
+        private final boolean balanced;
+
+        // if only the smallest square of each class is returned
+        private final boolean distinct;
+
+        // symbols (0-based) in the square, -1 if empty
+        private final int[][] square;
+
+        // bit s is set if symbol s is already used in this row/column
+        private final int[] rowUsed;
+        private final int[] colUsed;
+
+        // bit b of successors[a] is set if b already directly follows a in some row
+        private final int[] successors;
+
+        // first cell which is free to choose in this part of the search
+        private int startCell;
+
+        Search(int size, boolean balanced, boolean distinct)
+        {
+            this.size = size;
+            this.balanced = balanced;
+            this.distinct = distinct;
+            this.square = new int[size][size];
+            this.rowUsed = new int[size];
+            this.colUsed = new int[size];
+            this.successors = new int[size];
+
+            for (int[] row : square)
+                Arrays.fill(row, -1);
+
+            // first row and first column are fixed in order
+            for (int j = 0; j < size; j++)
+                place(0, j, j);
+            for (int i = 1; i < size; i++)
+                place(i, 0, i);
+
+            startCell = size + 1;
+        }
+
+        private Search(Search other)
+        {
+            this.size = other.size;
+            this.balanced = other.balanced;
+            this.distinct = other.distinct;
+            this.square = new int[size][];
+            for (int i = 0; i < size; i++)
+                this.square[i] = other.square[i].clone();
+            this.rowUsed = other.rowUsed.clone();
+            this.colUsed = other.colUsed.clone();
+            this.successors = other.successors.clone();
+            this.startCell = other.startCell;
+        }
+
+        /**
+         * Splits this search into independent parts by fixing the cells of the second row.
+         * @param parts list to add the parts to
+         */
+        void split(List<Search> parts)
+        {
+            // nothing left to split for tiny squares
+            if (size < 3)
+            {
+                parts.add(this);
+                return;
+            }
+
+            splitRow(parts, startCell);
+        }
+
+        /**
+         * Returns the cell following the given one, skipping the fixed first column.
+         * @param cell index (row * size + column)
+         * @return next cell index
+         */
+        private int next(int cell)
+        {
+            cell++;
+            return cell % size == 0 ? cell + 1 : cell;
+        }
+
+        /**
+         * Returns the cell preceding the given one, skipping the fixed first column.
+         * @param cell index (row * size + column)
+         * @return previous cell index
+         */
+        private int previous(int cell)
+        {
+            cell--;
+            return cell % size == 0 ? cell - 1 : cell;
+        }
+
+        private void splitRow(List<Search> parts, int cell)
+        {
+            int i = cell / size;
+            int j = cell % size;
+
+            if (i > 1)
+            {
+                Search part = new Search(this);
+                part.startCell = cell;
+                parts.add(part);
+                return;
+            }
+
+            int candidates = candidates(i, j);
+
+            while (candidates != 0)
+            {
+                int s = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+
+                place(i, j, s);
+                splitRow(parts, next(cell));
+                remove(i, j, s);
+            }
+        }
+
+        Spliterator<int[][]> spliterator()
+        {
+            return new Spliterators.AbstractSpliterator<int[][]>(Long.MAX_VALUE,
+                    Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+
+                // remaining candidates for each cell on the current path
+                private final int[] remaining = new int[size * size];
+                private int cell = -1;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super int[][]> action)
+                {
+                    if (cell == -1)
+                    {
+                        // first call: start at the first free cell
+                        cell = startCell;
+
+                        if (cell >= size * size)
+                        {
+                            cell = -2;
+                            action.accept(copy());
+                            return true;
+                        }
+
+                        remaining[cell] = candidates(cell / size, cell % size);
+                    }
+                    else if (cell == -2)
+                        return false;
+                    else
+                    {
+                        // continue after the last found square
+                        cell = size * size - 1;
+                        remove(cell / size, cell % size, square[cell / size][cell % size]);
+                    }
+
+                    while (cell >= startCell)
+                    {
+                        int i = cell / size;
+                        int j = cell % size;
+
+                        if (remaining[cell] == 0)
+                        {
+                            // go back one cell
+                            cell = previous(cell);
+                            if (cell >= startCell)
+                                remove(cell / size, cell % size, square[cell / size][cell % size]);
+                            continue;
+                        }
+
+                        int s = Integer.numberOfTrailingZeros(remaining[cell]);
+                        remaining[cell] &= remaining[cell] - 1;
+                        place(i, j, s);
+
+                        if (cell == size * size - 1)
+                        {
+                            if (distinct && !isSmallest())
+                            {
+                                remove(i, j, s);
+                                continue;
+                            }
+
+                            action.accept(copy());
+                            return true;
+                        }
+
+                        cell = next(cell);
+                        remaining[cell] = candidates(cell / size, cell % size);
+                    }
+
+                    cell = -2;
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Returns the symbols which may be placed at the given cell.
+         * @param i row
+         * @param j column
+         * @return bitmask of symbols
+         */
+        private int candidates(int i, int j)
+        {
+            int all = (1 << size) - 1;
+            int free = all & ~rowUsed[i] & ~colUsed[j];
+
+            // each symbol may follow the previous one only once
+            if (balanced && j > 0)
+                free &= ~successors[square[i][j-1]];
+
+            return free;
+        }
+
+        private void place(int i, int j, int s)
+        {
+            square[i][j] = s;
+            rowUsed[i] |= 1 << s;
+            colUsed[j] |= 1 << s;
+
+            if (j > 0)
+                successors[square[i][j-1]] |= 1 << s;
+        }
+
+        private void remove(int i, int j, int s)
+        {
+            if (j > 0)
+                successors[square[i][j-1]] &= ~(1 << s);
+
+            square[i][j] = -1;
+            rowUsed[i] &= ~(1 << s);
+            colUsed[j] &= ~(1 << s);
+        }
+
+        /**
+         * Returns if the current (complete) square is the smallest of its class. Making row r the
+         * first row by renaming symbols and sorting the other rows again gives a reduced square,
+         * the smallest of the class is the smallest of these size squares.
+         * @return if no other row gives a smaller square
+         */
+        private boolean isSmallest()
+        {
+            int[] rename = new int[size];
+
+            for (int r = 1; r < size; r++)
+            {
+                for (int j = 0; j < size; j++)
+                    rename[square[r][j]] = j;
+
+                // row k of the other square is the renamed row which starts with square[r][k]
+                int compare = 0;
+
+                for (int k = 1; k < size && compare == 0; k++)
+                {
+                    int[] row = square[square[r][k]];
+
+                    for (int j = 1; j < size && compare == 0; j++)
+                        compare = Integer.compare(rename[row[j]], square[k][j]);
+                }
+
+                if (compare < 0)
+                    return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns the current square with identifiers from 1 to size.
+         * @return copy of the square
+         */
+        private int[][] copy()
+        {
+            int[][] result = new int[size][size];
+
+            for (int i = 0; i < size; i++)
+            {
+                for (int j = 0; j < size; j++)
+                    result[i][j] = square[i][j] + 1;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Random walk on latin squares by Jacobson and Matthews. The square is kept as incidence cube,
+     * cell (i, j, s) is 1 if symbol s is in row i and column j. A move changes the symbols in a 2x2
+     * subsquare and may leave one cell at -1 (improper square), which further moves repair.
+     */
+    private static class Walk {
+
+        private final int size;
+        private final Random random;
+        private final int[][][] cube;
+
+        // cell with -1 of an improper square, null if proper
+        private int[] improper = null;
+
+        Walk(int size, Random random)
+        {
+            this.size = size;
+            this.random = random;
+            this.cube = new int[size][size][size];
+
+            // start with the cyclic square
+            for (int i = 0; i < size; i++)
+            {
+                for (int j = 0; j < size; j++)
+                    cube[i][j][(i + j) % size] = 1;
+            }
+        }
+
+        /**
+         * Moves the given number of steps, repeated until the square is proper after them.
+         * Waiting for the first proper square instead would prefer squares often reached
+         * from improper ones.
+         * @param steps number of moves
+         */
+        void steps(int steps)
+        {
+            // a square of size 1 or 2 has no cell with 0 to start a move from
+            if (size < 3)
+            {
+                if (size == 2 && random.nextBoolean())
+                    swapRows();
+                return;
+            }
+
+            do {
+                for (int k = 0; k < steps; k++)
+                    move();
+            } while (improper != null);
+        }
+
+        /**
+         * Starts from a random cell with 0 in a proper square, or the cell with -1 in an improper one.
+         */
+        private void move()
+        {
+            int i, j, s;
+
+            if (improper == null)
+            {
+                do {
+                    i = random.nextInt(size);
+                    j = random.nextInt(size);
+                    s = random.nextInt(size);
+                } while (cube[i][j][s] != 0);
+            }
+            else
+            {
+                i = improper[0];
+                j = improper[1];
+                s = improper[2];
+            }
+
+            // one of the cells with 1 in each line through (i, j, s)
+            int i2 = pick(0, i, j, s);
+            int j2 = pick(1, i, j, s);
+            int s2 = pick(2, i, j, s);
+
+            cube[i][j][s]++;
+            cube[i][j2][s2]++;
+            cube[i2][j][s2]++;
+            cube[i2][j2][s]++;
+            cube[i][j][s2]--;
+            cube[i][j2][s]--;
+            cube[i2][j][s]--;
+            cube[i2][j2][s2]--;
+
+            improper = cube[i2][j2][s2] < 0 ? new int[] { i2, j2, s2 } : null;
+        }
+
+        /**
+         * Returns a random index with 1 on the line through the cell along the given axis.
+         */
+        private int pick(int axis, int i, int j, int s)
+        {
+            int found = -1;
+            int seen = 0;
+
+            for (int x = 0; x < size; x++)
+            {
+                int value = axis == 0 ? cube[x][j][s] : axis == 1 ? cube[i][x][s] : cube[i][j][x];
+
+                if (value == 1 && random.nextInt(++seen) == 0)
+                    found = x;
+            }
+
+            return found;
+        }
+
+        private void swapRows()
+        {
+            int[][] tmp = cube[0];
+            cube[0] = cube[1];
+            cube[1] = tmp;
+        }
+
+        /**
+         * Returns the current (proper) square with identifiers from 1 to size.
+         * @return copy of the square
+         */
+        int[][] square()
+        {
+            int[][] result = new int[size][size];
+
+            for (int i = 0; i < size; i++)
+            {
+                for (int j = 0; j < size; j++)
+                {
+                    for (int s = 0; s < size; s++)
+                    {
+                        if (cube[i][j][s] == 1)
+                            result[i][j] = s + 1;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        Scanner scanner = new Scanner(System.in);
+
+        // read parameters
+        System.out.print("Enter number of possible conditions: ");
+        int size = scanner.nextInt();
+        scanner.nextLine();
+        System.out.println("Only balanced latin squares? (yes/no) ");
+        String balanced = scanner.next();
+        System.out.print("Enter maximum number of files: ");
+        int limit = scanner.nextInt();
+        scanner.nextLine();
+
+        // read file name
+        System.out.println("Enter starting name of file to store result: ");
+        String startName = scanner.next();
+
+        int saved = Generate(size, balanced.equals("yes"), limit, startName);
+        System.out.println("Saved " + saved + " latin squares");
+    }
+}
@@ -0,0 +1,508 @@
+package com.marcruble.generators;
+
+import com.marcruble.metrics.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class OrthogonalLatinSquareGenerator implements SquareGenerator {
+
+    // maximum number of search steps per attempt when no construction is known
+    private static final long SEARCH_BUDGET = 20_000_000L;
+
+    // maximum number of attempts with different starting squares
+    private static final int SEARCH_ATTEMPTS = 50;
+
+    // largest size for the search, the number of transversals explodes above (size 14 already takes minutes)
+    public static final int MAX_SEARCH_SIZE = 10;
+
+    /**
+     * Generates a pair of orthogonal latin squares, i.e. each combination of a condition of the
+     * first factor with a condition of the second one occurs exactly once, and saves it as a
+     * description for the reader: a file with the order of the first factor and for each of its
+     * conditions a subfolder with the order of the second factor.
+     * @param size number of conditions of each factor
+     * @param fileName name of folder to create in the results folder
+     * @param firstName name of the first factor, e.g. Controller
+     * @param secondName name of the second factor, e.g. Pose
+     */
+    public static void Generate(int size, String fileName, String firstName, String secondName)
+    {
+        MetricsListener metrics = Metrics.get();
+        long start = System.nanoTime();
+
+        int[][][] squares = createSquares(size, 2, new Random(0));
+
+        metrics.cellsGenerated("orthogonal latin squares", 2L * size * size, System.nanoTime() - start);
+
+        // save folder in results folder
+        File directory = new File(SquareWriter.RESULTS_FOLDER, fileName);
+        try {
+            writeDescription(squares[0], squares[1], directory, firstName, secondName);
+        } catch (IOException e) {
+            metrics.error(directory.getPath(), e);
+            System.err.println("[Error] occured while saving Orthogonal Latin Squares");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns mutually orthogonal latin squares of given size. For prime powers, up to size-1
+     * squares are constructed with a finite field. Other sizes are products of prime powers
+     * (as many squares as the smallest prime power minus one). For sizes 2 mod 4 this gives
+     * less than two squares, so a pair is searched for. None exists for 2 and 6, and only size 10
+     * is searched (below a second), for 14 and more the search would not finish in reasonable time.
+     * @param size number of conditions
+     * @param count number of squares
+     * @param random generator used for the search
+     * @return squares with condition identifiers from 1 to size
+     */
+    public static int[][][] createSquares(int size, int count, Random random)
+    {
+        if (size < 1)
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        if (count < 1)
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        if (count > getMaximumCount(size))
+            throw new IllegalArgumentException("At most " + getMaximumCount(size)
+                    + " orthogonal latin squares of size " + size + " can be generated");
+
+        int[][][] squares;
+
+        if (size == 1)
+            squares = new int[count][1][1];
+        else if (size % 4 == 2 && count >= 2)
+            squares = searchPair(size, random);
+        else
+            squares = construct(size, count);
+
+        // use identifiers starting with 1
+        for (int[][] square : squares)
+        {
+            for (int[] row : square)
+            {
+                for (int j = 0; j < size; j++)
+                    row[j]++;
+            }
+        }
+
+        return squares;
+    }
+
+    /**
+     * Returns how many mutually orthogonal latin squares this generator can create.
+     * @param size number of conditions
+     * @return maximum number of squares
+     */
+    public static int getMaximumCount(int size)
+    {
+        if (size == 1)
+            return Integer.MAX_VALUE;
+        if (size == 2 || size == 6)
+            return 1;
+        if (size % 4 == 2)
+            return size <= MAX_SEARCH_SIZE ? 2 : 1;
+
+        int count = Integer.MAX_VALUE;
+
+        for (int q : primePowerFactors(size))
+            count = Math.min(count, q - 1);
+
+        return count;
+    }
+
+    /**
+     * Saves a pair of squares as nested description, see {@link #Generate}.
+     * @param first square of the first factor
+     * @param second square of the second factor
+     * @param directory to create the description in
+     * @param firstName name of the first factor
+     * @param secondName name of the second factor
+     * @throws IOException if a file cannot be written
+     */
+    public static void writeDescription(int[][] first, int[][] second, File directory,
+                                        String firstName, String secondName) throws IOException
+    {
+        int rows = first.length;
+        int size = first[0].length;
+
+        Files.createDirectories(directory.toPath());
+        SquareWriter.write(new ArraySquare(first), directory.toPath().resolve(firstName + ".txt"));
+
+        for (int a = 1; a <= size; a++)
+        {
+            // for each participant, the condition of the second factor combined with a
+            int[][] combined = new int[rows][1];
+
+            for (int i = 0; i < rows; i++)
+            {
+                for (int j = 0; j < size; j++)
+                {
+                    if (first[i][j] == a)
+                        combined[i][0] = second[i][j];
+                }
+            }
+
+            Path subDirectory = directory.toPath().resolve(firstName + a);
+            Files.createDirectories(subDirectory);
+            SquareWriter.write(new ArraySquare(combined), subDirectory.resolve(secondName + ".txt"));
+        }
+    }
+
+    /**
+     * Constructs the squares as product of finite field squares for the prime power factors.
+     * @return squares with identifiers from 0 to size-1
+     */
+    private static int[][][] construct(int size, int count)
+    {
+        int[][][] result = null;
+
+        for (int q : primePowerFactors(size))
+        {
+            // squares L_a(i, j) = a * i + j for the nonzero elements a
+            GaloisField field = new GaloisField(q);
+            int[][][] squares = new int[count][q][q];
+
+            for (int k = 0; k < count; k++)
+            {
+                for (int i = 0; i < q; i++)
+                {
+                    for (int j = 0; j < q; j++)
+                        squares[k][i][j] = field.add(field.multiply(k + 1, i), j);
+                }
+            }
+
+            result = result == null ? squares : product(result, squares);
+        }
+
+        return result;
+    }
+
+    /**
+     * Combines two sets of orthogonal squares to a set of orthogonal squares of the product size.
+     */
+    private static int[][][] product(int[][][] a, int[][][] b)
+    {
+        int n = a[0].length;
+        int m = b[0].length;
+        int[][][] result = new int[a.length][n * m][n * m];
+
+        for (int k = 0; k < a.length; k++)
+        {
+            for (int i = 0; i < n * m; i++)
+            {
+                for (int j = 0; j < n * m; j++)
+                    result[k][i][j] = a[k][i / m][j / m] * m + b[k][i % m][j % m];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the prime powers whose product is the given number, e.g. 12 -> 4, 3.
+     */
+    private static List<Integer> primePowerFactors(int n)
+    {
+        List<Integer> factors = new ArrayList<>();
+
+        while (n > 1)
+        {
+            int p = GaloisField.smallestPrimeFactor(n);
+            int q = 1;
+
+            while (n % p == 0)
+            {
+                n /= p;
+                q *= p;
+            }
+
+            factors.add(q);
+        }
+
+        return factors;
+    }
+
+    /**
+     * Searches a pair of orthogonal latin squares by splitting random latin squares into
+     * disjoint transversals (a transversal contains each row, column and condition once,
+     * and the cells of a transversal get the same condition in the second square).
+     * @return two squares with identifiers from 0 to size-1
+     */
+    private static int[][][] searchPair(int size, Random random)
+    {
+        if (size > MAX_SEARCH_SIZE)
+            throw new IllegalArgumentException("Size must be at most " + MAX_SEARCH_SIZE + " to search a pair: " + size);
+
+        for (int attempt = 0; attempt < SEARCH_ATTEMPTS; attempt++)
+        {
+            int[][] first = randomLatinSquare(size, random);
+            int[][] second = findOrthogonalMate(first);
+
+            if (second != null)
+                return new int[][][] { first, second };
+        }
+
+        throw new IllegalStateException("No orthogonal latin squares of size " + size + " found");
+    }
+
+    /**
+     * Creates a latin square row by row. Each row is a random matching of columns to conditions
+     * not yet used in them, which always exists for a partially filled latin square.
+     */
+    private static int[][] randomLatinSquare(int size, Random random)
+    {
+        int[][] square = new int[size][size];
+        int[] columnUsed = new int[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            // condition matched to each column, and column matched to each condition
+            int[] conditionOf = new int[size];
+            int[] columnOf = new int[size];
+            Arrays.fill(conditionOf, -1);
+            Arrays.fill(columnOf, -1);
+
+            for (int j : randomPermutation(size, random))
+                match(j, columnUsed, conditionOf, columnOf, new boolean[size], random);
+
+            for (int j = 0; j < size; j++)
+            {
+                square[i][j] = conditionOf[j];
+                columnUsed[j] |= 1 << conditionOf[j];
+            }
+        }
+
+        return square;
+    }
+
+    /**
+     * Finds an augmenting path for a column, trying the free conditions in random order.
+     * @return if the column could be matched
+     */
+    private static boolean match(int column, int[] columnUsed, int[] conditionOf, int[] columnOf,
+                                 boolean[] visited, Random random)
+    {
+        for (int s : randomPermutation(conditionOf.length, random))
+        {
+            if ((columnUsed[column] & 1 << s) != 0 || visited[s])
+                continue;
+
+            visited[s] = true;
+
+            if (columnOf[s] < 0 || match(columnOf[s], columnUsed, conditionOf, columnOf, visited, random))
+            {
+                conditionOf[column] = s;
+                columnOf[s] = column;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int[] randomPermutation(int size, Random random)
+    {
+        int[] permutation = new int[size];
+
+        for (int i = 0; i < size; i++)
+            permutation[i] = i;
+
+        for (int i = size - 1; i > 0; i--)
+        {
+            int r = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[r];
+            permutation[r] = tmp;
+        }
+
+        return permutation;
+    }
+
+    /**
+     * Finds a latin square orthogonal to the given one, or null if none is found within the budget.
+     */
+    private static int[][] findOrthogonalMate(int[][] square)
+    {
+        int size = square.length;
+
+        // all transversals, grouped by their column in the first row
+        List<List<int[]>> transversals = new ArrayList<>();
+        for (int j = 0; j < size; j++)
+            transversals.add(new ArrayList<>());
+
+        long[] budget = { SEARCH_BUDGET };
+
+        if (!collectTransversals(square, new int[size], 0, 0, 0, transversals, budget))
+            return null;
+
+        int[][] mate = new int[size][size];
+        budget[0] = SEARCH_BUDGET;
+
+        return cover(transversals, 0, mate, budget) ? mate : null;
+    }
+
+    /**
+     * Collects the transversals of a square row by row.
+     * @return if all transversals were collected within the budget
+     */
+    private static boolean collectTransversals(int[][] square, int[] columns, int row, int columnsUsed,
+                                               int symbolsUsed, List<List<int[]>> transversals, long[] budget)
+    {
+        int size = square.length;
+
+        if (row == size)
+        {
+            transversals.get(columns[0]).add(columns.clone());
+            return true;
+        }
+
+        for (int j = 0; j < size; j++)
+        {
+            int symbol = square[row][j];
+
+            if ((columnsUsed & 1 << j) == 0 && (symbolsUsed & 1 << symbol) == 0)
+            {
+                if (--budget[0] < 0)
+                    return false;
+
+                columns[row] = j;
+
+                if (!collectTransversals(square, columns, row + 1, columnsUsed | 1 << j,
+                        symbolsUsed | 1 << symbol, transversals, budget))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Chooses disjoint transversals, the one through cell (0, k) gets condition k in the mate.
+     * Always continues with the cell of the first row having the fewest transversals left
+     * which are disjoint to the chosen ones.
+     * @param transversals remaining transversals for each cell of the first row, null if already chosen
+     * @param chosen number of chosen transversals
+     * @param mate square to fill in
+     * @param budget remaining number of steps
+     * @return if a complete mate was found
+     */
+    private static boolean cover(List<List<int[]>> transversals, int chosen, int[][] mate, long[] budget)
+    {
+        int size = mate.length;
+
+        if (chosen == size)
+            return true;
+
+        // find the most constrained cell of the first row
+        int next = -1;
+
+        for (int k = 0; k < size; k++)
+        {
+            List<int[]> group = transversals.get(k);
+
+            if (group != null && (next < 0 || group.size() < transversals.get(next).size()))
+                next = k;
+        }
+
+        for (int[] columns : transversals.get(next))
+        {
+            if (--budget[0] < 0)
+                return false;
+
+            // keep only transversals disjoint to this one
+            List<List<int[]>> remaining = new ArrayList<>(size);
+            boolean possible = true;
+
+            for (int k = 0; k < size; k++)
+            {
+                List<int[]> group = transversals.get(k);
+
+                if (k == next || group == null)
+                {
+                    remaining.add(null);
+                    continue;
+                }
+
+                List<int[]> filtered = new ArrayList<>();
+
+                for (int[] other : group)
+                {
+                    boolean disjoint = true;
+
+                    for (int i = 1; i < size && disjoint; i++)
+                        disjoint = other[i] != columns[i];
+
+                    if (disjoint)
+                        filtered.add(other);
+                }
+
+                budget[0] -= group.size() / 64;
+
+                if (filtered.isEmpty())
+                {
+                    possible = false;
+                    break;
+                }
+
+                remaining.add(filtered);
+            }
+
+            if (possible && cover(remaining, chosen + 1, mate, budget))
+            {
+                for (int i = 0; i < size; i++)
+                    mate[i][columns[i]] = next;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "orthogonal";
+    }
+
+    @Override
+    public List<String> getParameters()
+    {
+        return List.of("size", "count", "seed");
+    }
+
+    @Override
+    public Stream<Square> generate(Map<String, String> parameters)
+    {
+        int size = Generators.getInt(parameters, "size");
+        int count = parameters.containsKey("count") ? Generators.getInt(parameters, "count") : 2;
+        Random random = new Random(parameters.containsKey("seed") ? Generators.getInt(parameters, "seed") : 0);
+
+        return Arrays.stream(createSquares(size, count, random)).map(ArraySquare::new);
+    }
+
+    public static void main(String[] args)
+    {
+        Scanner scanner = new Scanner(System.in);
+
+        // read parameters
+        System.out.print("Enter number of possible conditions per factor: ");
+        int size = scanner.nextInt();
+        scanner.nextLine();
+        System.out.println("Enter name of first factor (e.g. Controller): ");
+        String firstName = scanner.next();
+        System.out.println("Enter name of second factor (e.g. Pose): ");
+        String secondName = scanner.next();
+
+        // read folder name
+        System.out.println("Enter name of folder to store result: ");
+        String fileName = scanner.next();
+
+        Generate(size, fileName, firstName, secondName);
+    }
+}
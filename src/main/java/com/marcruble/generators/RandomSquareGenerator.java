@@ -1,16 +1,17 @@
 package com.marcruble.generators;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import com.marcruble.constraints.SequenceConstraints;
+
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.stream.Stream;
+
+public class RandomSquareGenerator implements SquareGenerator {
 
-public class RandomSquareGenerator {
+    // number of tries to generate a row satisfying the sequence constraints
+    public static final int MAX_ATTEMPTS = 10000;
 
     /**
      * Generates a random square with given number of rows
@@ -24,47 +25,70 @@ public class RandomSquareGenerator {
     public static void Generate(int rows, int columns, int conditions, String fileName,
                                 Random random, boolean avoidRepetition)
     {
-        // first generate a 2D array, then transform to string
+        Stream<Square> square = Stream.generate(() -> createSquare(rows, columns, conditions, random, avoidRepetition))
+                .limit(1);
+        Generators.save("random square", square.iterator(), fileName, Generators.Numbering.NEVER);
+    }
+
+    /**
+     * Returns a random square with given number of rows and columns.
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param conditions number of conditions
+     * @param random generator to use
+     * @param avoidRepetition if repetitions should be avoided within the same line
+     * @return square
+     */
+    public static Square createSquare(int rows, int columns, int conditions,
+                                      Random random, boolean avoidRepetition)
+    {
+        return createSquare(rows, columns, conditions, random, avoidRepetition, null);
+    }
+
+    /**
+     * Returns a random square with given number of rows and columns, where each row
+     * satisfies the given sequence constraints. Rows breaking them are generated again.
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param conditions number of conditions
+     * @param random generator to use
+     * @param avoidRepetition if repetitions should be avoided within the same line
+     * @param constraints rows have to satisfy, null for none
+     * @return square
+     */
+    public static Square createSquare(int rows, int columns, int conditions, Random random,
+                                      boolean avoidRepetition, SequenceConstraints constraints)
+    {
+        if (avoidRepetition && columns > conditions)
+            throw new IllegalArgumentException("Cannot avoid repetitions with more columns than conditions");
+
+        boolean constrained = constraints != null && !constraints.isEmpty();
         int[][] square = new int[rows][columns];
-        StringBuilder text = new StringBuilder();
 
         for (int i = 0; i < rows; i++)
         {
-            for (int j = 0; j < columns; j++)
+            int attempts = 0;
+
+            do
             {
-                // generate random number
-                do
+                if (++attempts > MAX_ATTEMPTS)
+                    throw new IllegalArgumentException("Could not generate a row satisfying the sequence " +
+                            "constraints in " + MAX_ATTEMPTS + " attempts");
+
+                for (int j = 0; j < columns; j++)
                 {
-                    square[i][j] = random.nextInt(conditions) + 1;
+                    // generate random number
+                    do
+                    {
+                        square[i][j] = random.nextInt(conditions) + 1;
+                    }
+                    while (avoidRepetition && checkRepetitionInLine(square, i, j));
                 }
-                while (avoidRepetition && checkRepetitionInLine(square, i, j));
-            }
-        }
-
-        // convert to string
-        for (int i = 0; i < rows; i++)
-        {
-            for (int j = 0; j < columns; j++)
-            {
-                text.append(square[i][j]);
-                text.append(" ");
             }
-            text.append("\n");
+            while (constrained && !constraints.accepts(square[i]));
         }
 
-        // make sure file has correct ending
-        if (!fileName.endsWith(".txt"))
-            fileName += ".txt";
-
-        // save file in results folder
-        Path path = Paths.get("results/" + fileName);
-        try {
-            new File("results").mkdir(); // make sure results folder exists
-            Files.writeString(path, text.toString().strip(), StandardCharsets.UTF_8, StandardOpenOption.CREATE);
-        } catch (IOException e) {
-            System.err.println("[Error] occured while saving Balanced Latin Square");
-            e.printStackTrace();
-        }
+        return new ArraySquare(square);
     }
 
     /**
@@ -85,6 +109,36 @@ public class RandomSquareGenerator {
         return false;
     }
 
+    @Override
+    public String getName()
+    {
+        return "random";
+    }
+
+    @Override
+    public List<String> getParameters()
+    {
+        return List.of("seed", "rows", "columns", "conditions", "files", "avoidRepetition",
+                "noImmediateRepeats", "maxRunLength", "minSpacing", "first");
+    }
+
+    @Override
+    public Stream<Square> generate(Map<String, String> parameters)
+    {
+        int rows = Generators.getInt(parameters, "rows");
+        int columns = Generators.getInt(parameters, "columns");
+        int conditions = Generators.getInt(parameters, "conditions");
+        int files = parameters.containsKey("files") ? Generators.getInt(parameters, "files") : 1;
+        boolean avoidRepetition = Generators.getBoolean(parameters, "avoidRepetition", false);
+        SequenceConstraints constraints = SequenceConstraints.fromParameters(parameters);
+
+        // all squares use the same pseudo-random number generator
+        Random random = new Random(Generators.getInt(parameters, "seed"));
+
+        return Stream.generate(() -> createSquare(rows, columns, conditions, random, avoidRepetition, constraints))
+                .limit(files);
+    }
+
     public static void main(String[] args)
     {
         Scanner scanner = new Scanner(System.in);
@@ -0,0 +1,20 @@
+package com.marcruble.generators;
+
+/**
+ * Table of condition identifiers created by a generator, one row per participant/group.
+ * Cells may be computed when they are accessed, so large squares do not have to be kept in memory.
+ */
+public interface Square {
+
+    int getRows();
+
+    int getColumns();
+
+    /**
+     * Returns the condition identifier in the given cell.
+     * @param row index
+     * @param column index
+     * @return condition identifier, usually from 1 to the number of conditions
+     */
+    int get(int row, int column);
+}
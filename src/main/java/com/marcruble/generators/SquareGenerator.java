@@ -0,0 +1,33 @@
+package com.marcruble.generators;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Plugin interface for generators of squares. Implementations are found with a
+ * {@link java.util.ServiceLoader}, so a new generator only has to be listed in
+ * META-INF/services/com.marcruble.generators.SquareGenerator to be available
+ * in {@link Generators}, e.g. for batch runs and benchmarks.
+ */
+public interface SquareGenerator {
+
+    /**
+     * Returns the name to select this generator with, e.g. "balanced".
+     * @return name of the generator
+     */
+    String getName();
+
+    /**
+     * Returns the names of the parameters this generator reads, e.g. "size".
+     * @return list of parameter names
+     */
+    List<String> getParameters();
+
+    /**
+     * Generates squares for the given parameters. Squares are created when the stream is consumed.
+     * @param parameters mapping parameter names to values
+     * @return stream of generated squares
+     */
+    Stream<Square> generate(Map<String, String> parameters);
+}
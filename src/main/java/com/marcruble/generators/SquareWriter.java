@@ -0,0 +1,103 @@
+package com.marcruble.generators;
+
+import com.marcruble.metrics.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Saves squares as text files which can be used as description files by the reader.
+ */
+public class SquareWriter {
+
+    // folder where all generated files are saved
+    public static final String RESULTS_FOLDER = "results";
+
+    /**
+     * Saves a square in the results folder, one row per line with identifiers separated by spaces.
+     * Errors are printed instead of passed on, like in the interactive generators.
+     * @param square to save
+     * @param fileName name of file, extended with .txt if necessary
+     * @param description of the square for error messages, e.g. "Balanced Latin Square"
+     * @return if the file was saved
+     */
+    public static boolean write(Square square, String fileName, String description)
+    {
+        // make sure file has correct ending
+        if (!fileName.endsWith(".txt"))
+            fileName += ".txt";
+
+        // save file in results folder
+        Path path = Paths.get(RESULTS_FOLDER, fileName);
+        try {
+            new File(RESULTS_FOLDER).mkdir(); // make sure results folder exists
+            write(square, path);
+            return true;
+        } catch (IOException e) {
+            Metrics.get().error(path.toString(), e);
+            System.err.println("[Error] occured while saving " + description);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Saves a square at the given path, replacing an existing file.
+     * @param square to save
+     * @param path of file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Square square, Path path) throws IOException
+    {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8))
+        {
+            write(square, writer);
+        }
+    }
+
+    /**
+     * Writes a square row by row without building the whole text first.
+     * @param square to write
+     * @param writer to write to
+     * @throws IOException if writing fails
+     */
+    public static void write(Square square, Writer writer) throws IOException
+    {
+        // digits of the current number, filled from the end
+        char[] digits = new char[11];
+
+        for (int i = 0; i < square.getRows(); i++)
+        {
+            if (i > 0)
+                writer.write(" \n");
+
+            for (int j = 0; j < square.getColumns(); j++)
+            {
+                if (j > 0)
+                    writer.write(' ');
+
+                int value = square.get(i, j);
+                boolean negative = value < 0;
+                long rest = Math.abs((long) value);
+                int start = digits.length;
+
+                do
+                {
+                    digits[--start] = (char) ('0' + rest % 10);
+                    rest /= 10;
+                }
+                while (rest > 0);
+
+                if (negative)
+                    digits[--start] = '-';
+
+                writer.write(digits, start, digits.length - start);
+            }
+        }
+    }
+}
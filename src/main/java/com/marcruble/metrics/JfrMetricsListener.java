@@ -0,0 +1,150 @@
+package com.marcruble.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.File;
+
+/**
+ * Emits a Java Flight Recorder event for each measurement, so the phases
+ * show up in a recording without attaching a profiler.
+ */
+public class JfrMetricsListener implements MetricsListener {
+
+    @Name("com.marcruble.FileRead")
+    @Label("Description File Read")
+    @Category({"Experiment Utility", "Reader"})
+    static class FileReadEvent extends Event {
+        @Label("File") String file;
+        @Label("Bytes") long bytes;
+        @Label("Lines") int lines;
+    }
+
+    @Name("com.marcruble.LevelRead")
+    @Label("Description Level Read")
+    @Category({"Experiment Utility", "Reader"})
+    static class LevelReadEvent extends Event {
+        @Label("Directory") String directory;
+        @Label("Depth") int depth;
+        @Label("Time") @Timespan long nanos;
+    }
+
+    @Name("com.marcruble.SubjectMerged")
+    @Label("Subject Merged")
+    @Category({"Experiment Utility", "Reader"})
+    static class SubjectMergedEvent extends Event {
+        @Label("Subject") int subject;
+        @Label("Conditions") int conditions;
+        @Label("Time") @Timespan long nanos;
+    }
+
+    @Name("com.marcruble.CellsGenerated")
+    @Label("Cells Generated")
+    @Category({"Experiment Utility", "Generators"})
+    static class CellsGeneratedEvent extends Event {
+        @Label("Generator") String generator;
+        @Label("Cells") long cells;
+        @Label("Time") @Timespan long nanos;
+    }
+
+    @Name("com.marcruble.Allocated")
+    @Label("Allocated Bytes")
+    @Category({"Experiment Utility"})
+    static class AllocatedEvent extends Event {
+        @Label("Phase") String phase;
+        @Label("Bytes") long bytes;
+    }
+
+    @Name("com.marcruble.Error")
+    @Label("Error")
+    @Category({"Experiment Utility"})
+    static class ErrorEvent extends Event {
+        @Label("Source") String source;
+        @Label("Message") String message;
+    }
+
+    @Override
+    public void fileRead(File file, long bytes, int lines)
+    {
+        FileReadEvent event = new FileReadEvent();
+
+        if (event.isEnabled())
+        {
+            event.file = file.getPath();
+            event.bytes = bytes;
+            event.lines = lines;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void levelRead(File directory, int depth, long nanos)
+    {
+        LevelReadEvent event = new LevelReadEvent();
+
+        if (event.isEnabled())
+        {
+            event.directory = directory.getPath();
+            event.depth = depth;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void subjectMerged(int subject, int conditions, long nanos)
+    {
+        SubjectMergedEvent event = new SubjectMergedEvent();
+
+        if (event.isEnabled())
+        {
+            event.subject = subject;
+            event.conditions = conditions;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void cellsGenerated(String generator, long cells, long nanos)
+    {
+        CellsGeneratedEvent event = new CellsGeneratedEvent();
+
+        if (event.isEnabled())
+        {
+            event.generator = generator;
+            event.cells = cells;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void allocated(String phase, long bytes)
+    {
+        AllocatedEvent event = new AllocatedEvent();
+
+        if (event.isEnabled())
+        {
+            event.phase = phase;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void error(String source, Exception e)
+    {
+        ErrorEvent event = new ErrorEvent();
+
+        if (event.isEnabled())
+        {
+            event.source = source;
+            event.message = e.toString();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.marcruble.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Holds the listener used by the reader and the generators.
+ * By default, a listener doing nothing is installed.
+ */
+public class Metrics {
+
+    // listener doing nothing
+    public static final MetricsListener NONE = new MetricsListener() {};
+
+    private static volatile MetricsListener listener = NONE;
+
+    private static volatile boolean trackAllocations = false;
+
+    public static MetricsListener get()
+    {
+        return listener;
+    }
+
+    /**
+     * Installs a listener for all following measurements.
+     * @param newListener listener or null to remove the current one
+     */
+    public static void setListener(MetricsListener newListener)
+    {
+        listener = newListener == null ? NONE : newListener;
+    }
+
+    /**
+     * Enables reporting of allocated bytes per phase. This is only
+     * supported on JVMs offering per thread allocation counters.
+     * @param enabled if allocations should be tracked
+     */
+    public static void setAllocationTracking(boolean enabled)
+    {
+        trackAllocations = enabled && allocatedBytes() >= 0;
+    }
+
+    public static boolean isTrackingAllocations()
+    {
+        return trackAllocations;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     * @return allocated bytes or -1 if not supported
+     */
+    public static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+
+        return -1;
+    }
+}
@@ -0,0 +1,58 @@
+package com.marcruble.metrics;
+
+import java.io.File;
+
+/**
+ * Receives measurements from the reader and the generators.
+ * All methods do nothing by default, so implementations only override what they need.
+ * Methods may be called from several threads at once.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called after a description file was read.
+     * @param file which was read
+     * @param bytes size of the file
+     * @param lines number of content lines (without comments and empty lines)
+     */
+    default void fileRead(File file, long bytes, int lines) {}
+
+    /**
+     * Called after a level of the description (one directory including its subdirectories) was read.
+     * @param directory of the level
+     * @param depth of the level, 0 for the task folder
+     * @param nanos time spent reading the level
+     */
+    default void levelRead(File directory, int depth, long nanos) {}
+
+    /**
+     * Called after the conditions of a single subject were merged from the read levels.
+     * @param subject index
+     * @param conditions number of merged conditions
+     * @param nanos time spent merging
+     */
+    default void subjectMerged(int subject, int conditions, long nanos) {}
+
+    /**
+     * Called after a generator produced a table.
+     * @param generator name of the generator
+     * @param cells number of generated cells
+     * @param nanos time spent generating (without writing the file)
+     */
+    default void cellsGenerated(String generator, long cells, long nanos) {}
+
+    /**
+     * Called with the bytes allocated by the current thread during a phase,
+     * only if allocation tracking is enabled in {@link Metrics}.
+     * @param phase name of the phase, e.g. "read" or "generate"
+     * @param bytes allocated bytes
+     */
+    default void allocated(String phase, long bytes) {}
+
+    /**
+     * Called when an error occured which is not passed on to the caller.
+     * @param source where the error occured, e.g. a file path
+     * @param e the error
+     */
+    default void error(String source, Exception e) {}
+}
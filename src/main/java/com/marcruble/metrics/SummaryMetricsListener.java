@@ -0,0 +1,96 @@
+package com.marcruble.metrics;
+
+import java.io.File;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums up all measurements, e.g. to print them at the end of a run.
+ */
+public class SummaryMetricsListener implements MetricsListener {
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder rootLevelNanos = new LongAdder();
+    private final LongAdder subjects = new LongAdder();
+    private final LongAdder mergedConditions = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder generateNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Override
+    public void fileRead(File file, long bytes, int lines)
+    {
+        this.files.increment();
+        this.bytes.add(bytes);
+        this.lines.add(lines);
+    }
+
+    @Override
+    public void levelRead(File directory, int depth, long nanos)
+    {
+        // levels include their sublevels, so only the task folders are summed up
+        if (depth == 0)
+            rootLevelNanos.add(nanos);
+    }
+
+    @Override
+    public void subjectMerged(int subject, int conditions, long nanos)
+    {
+        subjects.increment();
+        mergedConditions.add(conditions);
+        mergeNanos.add(nanos);
+    }
+
+    @Override
+    public void cellsGenerated(String generator, long cells, long nanos)
+    {
+        this.cells.add(cells);
+        generateNanos.add(nanos);
+    }
+
+    @Override
+    public void allocated(String phase, long bytes)
+    {
+        allocatedBytes.add(bytes);
+    }
+
+    @Override
+    public void error(String source, Exception e)
+    {
+        errors.increment();
+    }
+
+    /**
+     * Returns the number of generated cells per second over all generators.
+     * @return cells per second
+     */
+    public double getCellsPerSecond()
+    {
+        long nanos = generateNanos.sum();
+        return nanos == 0 ? 0 : cells.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("read: ").append(files.sum()).append(" files, ")
+                .append(bytes.sum()).append(" bytes, ")
+                .append(lines.sum()).append(" lines in ")
+                .append(rootLevelNanos.sum() / 1_000_000).append(" ms\n");
+        sb.append("merge: ").append(subjects.sum()).append(" subjects, ")
+                .append(mergedConditions.sum()).append(" conditions in ")
+                .append(mergeNanos.sum() / 1_000_000).append(" ms\n");
+        sb.append("generate: ").append(cells.sum()).append(" cells in ")
+                .append(generateNanos.sum() / 1_000_000).append(" ms (")
+                .append(Math.round(getCellsPerSecond())).append(" cells/s)\n");
+        sb.append("allocated: ").append(allocatedBytes.sum()).append(" bytes\n");
+        sb.append("errors: ").append(errors.sum());
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.marcruble.reader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Contents of a single description file while reading, together with the nodes of its subfolders.
+ * All rows are kept in one flat array of symbols, row i spans cells offsets[i] to offsets[i+1].
+ */
+class DescriptionNode {
+
+    // symbol of the identifier leading to this node, -1 for the task folder
+    final int id;
+
+    final List<DescriptionNode> children = new ArrayList<>();
+
+    private int[] cells = new int[16];
+    private int[] offsets = new int[9];
+    private int numRows = 0;
+
+    DescriptionNode(int id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Appends a row of symbols.
+     * @param row symbols in order
+     */
+    void addRow(int[] row)
+    {
+        int start = offsets[numRows];
+
+        if (start + row.length > cells.length)
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, start + row.length));
+        if (numRows + 2 > offsets.length)
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+
+        System.arraycopy(row, 0, cells, start, row.length);
+        numRows++;
+        offsets[numRows] = start + row.length;
+    }
+
+    int getNumberOfRows()
+    {
+        return numRows;
+    }
+
+    /**
+     * Returns the symbols of a row. Subjects beyond the last row start again at the first row.
+     * @param subject index
+     * @return copy of the symbols in the row
+     */
+    int[] getRow(int subject)
+    {
+        int row = subject < numRows ? subject : subject % numRows;
+        return Arrays.copyOfRange(cells, offsets[row], offsets[row + 1]);
+    }
+
+    boolean isLeaf()
+    {
+        return children.isEmpty();
+    }
+
+    /**
+     * Returns the child with given symbol or null if not found.
+     * @param symbol of the child's identifier
+     * @return child node or null
+     */
+    DescriptionNode findChild(int symbol)
+    {
+        for (DescriptionNode child : children)
+        {
+            if (child.id == symbol)
+                return child;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns all symbols used in the rows of this node (ignoring children).
+     * @return set of symbols
+     */
+    BitSet collectIdentifiers()
+    {
+        BitSet ids = new BitSet();
+
+        for (int i = 0; i < offsets[numRows]; i++)
+            ids.set(cells[i]);
+
+        return ids;
+    }
+
+    /**
+     * Replaces each row by a single symbol joining its identifiers, reusing the arrays.
+     * @param symbols table to intern the joined identifiers in
+     * @param connector between the identifiers
+     */
+    void collapse(SymbolTable symbols, String connector)
+    {
+        StringBuilder joined = new StringBuilder();
+
+        // row i only needs cell i afterwards, which is never behind the start of row i unless a row is empty
+        int[] collapsed = cells;
+        for (int i = 0; i < numRows; i++)
+        {
+            if (offsets[i] == offsets[i + 1])
+            {
+                collapsed = new int[Math.max(numRows, 1)];
+                break;
+            }
+        }
+
+        for (int i = 0; i < numRows; i++)
+        {
+            joined.setLength(0);
+
+            for (int k = offsets[i]; k < offsets[i + 1]; k++)
+            {
+                if (k > offsets[i])
+                    joined.append(connector);
+                joined.append(symbols.name(cells[k]));
+            }
+
+            collapsed[i] = symbols.intern(joined.toString());
+            offsets[i] = i;
+        }
+
+        offsets[numRows] = numRows;
+        cells = collapsed;
+    }
+}
@@ -0,0 +1,206 @@
+package com.marcruble.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks a description of a task for all problems which would make the
+ * {@link ExperimentReader} fail, without building the task.
+ * Each file is read only once and the files of different levels are checked in parallel.
+ */
+public class DescriptionValidator {
+
+    /**
+     * Validates the description of a task with the arguments it would be read with.
+     * @param rootFile folder containing the description
+     * @param numLines number of rows to be read in each file
+     * @param separator between the identifiers, e.g. " " in line: 1 2 3
+     * @return all found errors sorted by file, line and column (empty if valid)
+     */
+    public static List<ValidationError> validate(File rootFile, int numLines, String separator)
+    {
+        if (!rootFile.isDirectory())
+            throw new IllegalArgumentException("Provided directory was not a directory: " + rootFile.getPath());
+
+        Pattern pattern = Pattern.compile(separator);
+
+        List<ValidationError> errors = validateLevel(rootFile, numLines, pattern)
+                .collect(Collectors.toList());
+        Collections.sort(errors);
+
+        return errors;
+    }
+
+    /**
+     * Validates the file of a directory and then all subdirectories referenced by it in parallel.
+     * @param directory of this level
+     * @param numLines number of rows to be read in each file
+     * @param separator between the identifiers
+     * @return stream of errors in this level and all sublevels
+     */
+    private static Stream<ValidationError> validateLevel(File directory, int numLines, Pattern separator)
+    {
+        File[] files = directory.listFiles();
+        File[] subDirs = directory.listFiles(File::isDirectory);
+        File singleFile = null;
+
+        for (File file : files)
+        {
+            if (file.getName().endsWith(".txt"))
+            {
+                singleFile = file;
+                break;
+            }
+        }
+
+        if (singleFile == null)
+            return Stream.of(new ValidationError(directory, 0, 0, "No .txt file found"));
+
+        // subdirectories referenced by any row of this level
+        BitSet referenced = new BitSet(subDirs.length);
+        List<ValidationError> errors = validateFile(singleFile, subDirs, referenced, numLines, separator);
+
+        Stream<ValidationError> childErrors = referenced.stream()
+                .mapToObj(i -> subDirs[i])
+                .collect(Collectors.toList())
+                .parallelStream()
+                .flatMap(child -> validateLevel(child, numLines, separator));
+
+        return Stream.concat(errors.stream(), childErrors);
+    }
+
+    /**
+     * Checks the rows of a single file against the identifiers available at its level.
+     * As in the reader, the level is the lowest one if none of its identifiers has a subfolder,
+     * other folders next to the file (e.g. notes) are ignored then.
+     * @param file to check
+     * @param subDirs directories at this level
+     * @param referenced set to mark the indices of used subdirectories in
+     * @param numLines number of rows to be read in each file
+     * @param separator between the identifiers
+     * @return list of errors in this file
+     */
+    private static List<ValidationError> validateFile(File file, File[] subDirs, BitSet referenced,
+                                                      int numLines, Pattern separator)
+    {
+        List<ValidationError> errors = new ArrayList<>();
+        List<String> lines;
+
+        try {
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            errors.add(new ValidationError(file, 0, 0, "Could not be read: " + e.getMessage()));
+            return errors;
+        }
+
+        // domain of this level: symbols of the identifiers seen so far, those with a subfolder
+        // and the index of their subfolder
+        SymbolTable symbols = new SymbolTable();
+        BitSet domain = new BitSet();
+        int[] subDirOf = new int[16];
+
+        // line, column and symbol of each identifier without subfolder, only errors if the level has subfolders
+        List<int[]> withoutFolder = new ArrayList<>();
+
+        // line and number of identifiers of each row, only checked if the level has subfolders
+        List<int[]> lengths = new ArrayList<>();
+
+        int rows = 0;
+
+        for (int l = 0; l < lines.size() && rows < numLines; l++)
+        {
+            String line = lines.get(l);
+
+            // skip the same lines as the reader does
+            if (line.stripLeading().startsWith("#") || line.strip().isEmpty())
+                continue;
+
+            rows++;
+            int length = 0;
+            Matcher matcher = separator.matcher(line);
+            int start = 0;
+
+            // go through all parts between separators
+            while (start <= line.length())
+            {
+                int end = matcher.find(start) && matcher.end() > matcher.start() ? matcher.start() : line.length();
+                String part = line.substring(start, end).strip();
+
+                if (!part.isEmpty())
+                {
+                    length++;
+                    int known = symbols.size();
+                    int symbol = symbols.intern(part);
+
+                    // look up the subfolder of a new identifier
+                    if (symbol == known)
+                    {
+                        if (symbol >= subDirOf.length)
+                            subDirOf = Arrays.copyOf(subDirOf, subDirOf.length * 2);
+
+                        subDirOf[symbol] = findSubDir(subDirs, part);
+
+                        if (subDirOf[symbol] >= 0)
+                            domain.set(symbol);
+                    }
+
+                    if (domain.get(symbol))
+                        referenced.set(subDirOf[symbol]);
+                    else
+                        withoutFolder.add(new int[] { l + 1, start + line.substring(start, end).indexOf(part) + 1, symbol });
+                }
+
+                start = end == line.length() ? end + 1 : matcher.end();
+            }
+
+            if (length == 0)
+                errors.add(new ValidationError(file, l + 1, 0, "Row contains no identifiers"));
+            else
+                lengths.add(new int[] { l + 1, length });
+        }
+
+        // rows of the lowest level may differ in length
+        if (!domain.isEmpty())
+        {
+            for (int[] identifier : withoutFolder)
+                errors.add(new ValidationError(file, identifier[0], identifier[1], "Unknown identifier "
+                        + symbols.name(identifier[2]) + ", no subfolder ends with it"));
+
+            for (int[] row : lengths)
+            {
+                if (row[1] != lengths.get(0)[1])
+                    errors.add(new ValidationError(file, row[0], 0,
+                            "Row has " + row[1] + " identifiers, but the first row has " + lengths.get(0)[1]));
+            }
+        }
+
+        if (rows < numLines)
+            errors.add(new ValidationError(file, lines.size() + 1, 0,
+                    "Expected " + numLines + " rows, but found only " + rows));
+
+        return errors;
+    }
+
+    /**
+     * Returns the index of the subdirectory for an identifier, using the same rule as the reader.
+     * @param subDirs to search through
+     * @param id to find
+     * @return index or -1 if not found
+     */
+    private static int findSubDir(File[] subDirs, String id)
+    {
+        for (int i = 0; i < subDirs.length; i++)
+        {
+            if (ExperimentReader.endsWithIdentifier(subDirs[i].getName(), id))
+                return i;
+        }
+        return -1;
+    }
+}
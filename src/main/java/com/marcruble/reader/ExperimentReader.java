@@ -1,16 +1,19 @@
 package com.marcruble.reader;
 
-import com.tree.TreeNode;
 import com.marcruble.common.*;
+import com.marcruble.metrics.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ExperimentReader {
 
@@ -30,12 +33,80 @@ public class ExperimentReader {
         if (!rootFile.isDirectory())
             throw new IllegalArgumentException("Provided directory was not a directory: " + rootFile.getPath());
 
-        // use a tree to contain the different maps while traversing the file structure
-        TreeNode<Map<Integer, List<String>>> tree =
-                readNode("NULL", rootFile, numLines, separator, collapse, connector);
+        MetricsListener metrics = Metrics.get();
+        long allocatedBefore = Metrics.isTrackingAllocations() ? Metrics.allocatedBytes() : 0;
 
+        // use a tree of the read files while traversing the file structure
+        SymbolTable symbols = new SymbolTable();
+        DescriptionNode tree =
+                readNode(-1, rootFile, 0, numLines, separator, collapse, connector, symbols, new int[2]);
+
+        Task task = buildTask(tree, symbols, numLines, merger);
+
+        if (Metrics.isTrackingAllocations())
+            metrics.allocated("read", Metrics.allocatedBytes() - allocatedBefore);
+
+        return task;
+    }
+
+    /**
+     * Parses the description of a task with given arguments and determines the number of
+     * participants from the files while reading them.
+     * @param rootFile folder containing the description
+     * @param policy how to handle files with different numbers of rows
+     * @param separator between the identifiers, e.g. " " in line: 1 2 3
+     * @param collapse collapse the last level of identifiers
+     * @param connector how to connect the collapsed identifiers, e.g. with "-": 1 2 3 -> 1-2-3
+     * @param merger function mapping the read identifiers in all levels to a key/name for the condition
+     * @return task object describing what was read
+     */
+    public static Task readTask(File rootFile, RowPolicy policy, String separator,
+                                boolean collapse, String connector, Function<String[], String> merger)
+    {
+        if (!rootFile.isDirectory())
+            throw new IllegalArgumentException("Provided directory was not a directory: " + rootFile.getPath());
+
+        MetricsListener metrics = Metrics.get();
+        long allocatedBefore = Metrics.isTrackingAllocations() ? Metrics.allocatedBytes() : 0;
+
+        // read all rows of every file, remembering the smallest and largest number of rows
+        int[] rowCounts = { Integer.MAX_VALUE, 0 };
+        SymbolTable symbols = new SymbolTable();
+        DescriptionNode tree =
+                readNode(-1, rootFile, 0, -1, separator, collapse, connector, symbols, rowCounts);
+
+        int numLines;
+
+        if (policy == RowPolicy.TRUNCATE)
+            numLines = rowCounts[0];
+        else if (policy == RowPolicy.CYCLE || rowCounts[0] == rowCounts[1])
+            numLines = rowCounts[1];
+        else
+            throw new RuntimeException("Invalid File Structure: Files contain between " + rowCounts[0] +
+                    " and " + rowCounts[1] + " rows in " + rootFile.getPath());
+
+        Task task = buildTask(tree, symbols, numLines, merger);
+
+        if (Metrics.isTrackingAllocations())
+            metrics.allocated("read", Metrics.allocatedBytes() - allocatedBefore);
+
+        return task;
+    }
+
+    /**
+     * Builds the table of combined conditions from a read tree.
+     * @param tree read from the description
+     * @param symbols table of the identifiers in the tree
+     * @param numLines number of subjects
+     * @param merger function mapping the read identifiers in all levels to a key/name for the condition
+     * @return task containing a row for each subject
+     */
+    private static Task buildTask(DescriptionNode tree, SymbolTable symbols, int numLines,
+                                  Function<String[], String> merger)
+    {
         // create empty task
         Task task = new Task();
+        Function<String[], Condition> conditionOf = interning(merger);
 
         // build the table of combined conditions
         // for each subject id
@@ -45,7 +116,7 @@ public class ExperimentReader {
             task.addRow();
 
             // determine conditions for this subject in tree
-            List<Condition> conditions = mergeTree(subject, tree, new ArrayList<>(), merger);
+            List<Condition> conditions = mergeSubject(subject, tree, symbols, conditionOf);
 
             // add them to the task
             for (Condition cond : conditions)
@@ -56,30 +127,91 @@ public class ExperimentReader {
         return task;
     }
 
+    /**
+     * Parses the description of a task with given arguments, but only reads the description files.
+     * The conditions of a subject are merged when they are first accessed and then cached.
+     * @param rootFile folder containing the description
+     * @param numLines number of rows to be read in each file
+     * @param separator between the identifiers, e.g. " " in line: 1 2 3
+     * @param collapse collapse the last level of identifiers
+     * @param connector how to connect the collapsed identifiers, e.g. with "-": 1 2 3 -> 1-2-3
+     * @param merger function mapping the read identifiers in all levels to a key/name for the condition
+     * @param cacheSize maximum number of subjects kept merged in memory
+     * @return task object resolving its rows on demand
+     */
+    public static LazyTask readLazyTask(File rootFile, int numLines, String separator,
+                                        boolean collapse, String connector, Function<String[], String> merger,
+                                        int cacheSize)
+    {
+        if (!rootFile.isDirectory())
+            throw new IllegalArgumentException("Provided directory was not a directory: " + rootFile.getPath());
+
+        SymbolTable symbols = new SymbolTable();
+        DescriptionNode tree =
+                readNode(-1, rootFile, 0, numLines, separator, collapse, connector, symbols, new int[2]);
+
+        Function<String[], Condition> conditionOf = interning(merger);
+
+        return new LazyTask(numLines, subject -> mergeSubject(subject, tree, symbols, conditionOf), cacheSize);
+    }
+
+    /**
+     * Returns a function creating the condition for the identifiers of all levels, which creates
+     * only one condition object for the same identifiers. So a condition used in many rows is
+     * merged once and renders its readable name once.
+     * @param merger function mapping the read identifiers in all levels to a key/name for the condition
+     * @return function mapping the identifiers to their condition, safe to use from several threads
+     */
+    private static Function<String[], Condition> interning(Function<String[], String> merger)
+    {
+        Map<List<String>, Condition> conditions = new ConcurrentHashMap<>();
+
+        return factors -> conditions.computeIfAbsent(Arrays.asList(factors),
+                key -> new Condition(merger.apply(factors), factors));
+    }
+
+    /**
+     * Determines the conditions of a single subject from the read tree.
+     * @param subject to merge
+     * @param tree read from the description
+     * @param symbols table of the identifiers in the tree
+     * @param conditionOf function mapping the read identifiers in all levels to the condition
+     * @return list of conditions for this subject
+     */
+    private static List<Condition> mergeSubject(int subject, DescriptionNode tree, SymbolTable symbols,
+                                                Function<String[], Condition> conditionOf)
+    {
+        long start = System.nanoTime();
+        List<Condition> conditions = new ArrayList<>();
+        mergeTree(subject, tree, symbols, new String[0], conditionOf, conditions);
+        Metrics.get().subjectMerged(subject, conditions.size(), System.nanoTime() - start);
+        return conditions;
+    }
+
     /**
      * Creates a tree node containing all read information in this directory including recursive subdirectories.
-     * @param id for this directory/identifier
+     * @param id symbol of the identifier for this directory, -1 for the task folder
      * @param directory to read
-     * @param numLines number of rows to be read in each file
+     * @param depth of this directory, 0 for the task folder
+     * @param numLines number of rows to be read in each file, -1 to read all rows
      * @param separator between the identifiers, e.g. " " in line: 1 2 3
      * @param collapse collapse the last level of identifiers
      * @param connector how to connect the collapsed identifiers, e.g. with "-": 1 2 3 -> 1-2-3
-     * @return tree node mapping subject id to a list of identifiers (-1 for encoded parameter id)
+     * @param symbols table to intern the read identifiers in
+     * @param rowCounts smallest and largest number of rows read so far, updated with this level
+     * @return tree node holding the rows of symbols
      */
-    private static TreeNode<Map<Integer, List<String>>> readNode
-            (String id, File directory, int numLines, String separator, boolean collapse,
-             String connector)
+    private static DescriptionNode readNode
+            (int id, File directory, int depth, int numLines, String separator, boolean collapse,
+             String connector, SymbolTable symbols, int[] rowCounts)
     {
         if (!directory.isDirectory())
             throw new IllegalArgumentException("Provided directory was not a directory: " + directory.getPath());
 
-        // setup tree node for storing the results
-        TreeNode<Map<Integer, List<String>>> tree = new TreeNode<>(new HashMap<>());
+        long start = System.nanoTime();
 
-        // store the given identifier for index -1 to encode an annotated edge
-        List<String> onlyID = new ArrayList<>();
-        onlyID.add(id);
-        tree.data.put(-1, onlyID);
+        // setup tree node for storing the results
+        DescriptionNode tree = new DescriptionNode(id);
 
         // get single file at this level
         File singleFile = findFile(directory.listFiles(), ".txt", false);
@@ -87,49 +219,67 @@ public class ExperimentReader {
         // read single file at this level
         List<String> contentLines = readAllLines(directory, singleFile.getName());
 
+        // a level without rows cannot be combined with any subject, whatever the row policy
+        if (contentLines.isEmpty())
+            throw new RuntimeException("Invalid File Structure: No rows in " + singleFile.getPath());
+
+        int rows = numLines < 0 ? contentLines.size() : numLines;
+        rowCounts[0] = Math.min(rowCounts[0], rows);
+        rowCounts[1] = Math.max(rowCounts[1], rows);
+
         // for each row
-        for (int i = 0; i < numLines; i++)
+        for (int i = 0; i < rows; i++)
         {
             // parse and save this line
             List<String> line = parseLine(contentLines.get(i), separator);
-            tree.data.put(i, line);
+            int[] row = new int[line.size()];
+
+            for (int k = 0; k < row.length; k++)
+                row[k] = symbols.intern(line.get(k));
+
+            tree.addRow(row);
         }
 
         // determine if there are more levels
         File[] subDirs = directory.listFiles(File::isDirectory);
 
-        // use helper function to get set of all identifiers at this level
-        Set<String> childrenIDs = collectIdentifiers(tree);
+        // get set of all identifiers at this level
+        BitSet childrenIDs = tree.collectIdentifiers();
         int createdChildren = 0;
 
         // for each identifier
-        for (String childID : childrenIDs)
+        for (int childID = childrenIDs.nextSetBit(0); childID >= 0; childID = childrenIDs.nextSetBit(childID + 1))
         {
+            String childName = symbols.name(childID);
+
             // determine folder for this identifier
-            File childFolder = findFile(subDirs, childID, false);
+            File childFolder = findFile(subDirs, childName, false);
 
             if (childFolder == null)
             {
                 // no folder found -> reached leaf/bottom of file structure
                 if (createdChildren > 0)
                     throw  new RuntimeException("Invalid File Structure: Some of the used identifiers " +
-                            "were provided a subfolder while " + childID + " did not in " + directory.getPath());
+                            "were provided a subfolder while " + childName + " did not in " + directory.getPath());
 
                 // collapse this level if required
                 if (collapse)
-                    tree = collapseNode(tree, connector);
+                    tree.collapse(symbols, connector);
 
                 // finished
+                Metrics.get().levelRead(directory, depth, System.nanoTime() - start);
                 return tree;
             }
 
             // folder is found -> create child recursively
             createdChildren++;
 
-            tree.addChildNode(readNode(childID, childFolder, numLines, separator, collapse, connector));
+            tree.children.add(readNode(childID, childFolder, depth + 1, numLines, separator, collapse, connector,
+                    symbols, rowCounts));
         }
 
         // finished adding children
+        Metrics.get().levelRead(directory, depth, System.nanoTime() - start);
         return tree;
     }
 
@@ -138,131 +288,40 @@ public class ExperimentReader {
      * is found based on the specified order in the node contents.
      * @param subject for which to traverse the tree
      * @param tree to traverse
-     * @param previousIDs list of identifiers seen so far (from root to current without branches)
-     * @param merger function mapping the read identifiers in all levels to a key/name for the condition
-     * @return list of conditions for this subject
+     * @param symbols table of the identifiers in the tree
+     * @param previousIDs identifiers seen so far (from root to current without branches)
+     * @param conditionOf function mapping the read identifiers in all levels to the condition
+     * @param conditions list to add the conditions for this subject to
      */
-    private static List<Condition> mergeTree(int subject, TreeNode<Map<Integer, List<String>>> tree,
-                                             List<String> previousIDs, Function<String[], String> merger)
+    private static void mergeTree(int subject, DescriptionNode tree, SymbolTable symbols, String[] previousIDs,
+                                  Function<String[], Condition> conditionOf, List<Condition> conditions)
     {
-        // copy to prevent errors
-        List<String> currentIDs = new ArrayList<>(previousIDs);
-
-        // add this node's identifier, encoded in -1
-        String treeID = tree.data.get(-1).get(0);
+        // add this node's identifier, skipping the root
+        String[] currentIDs = previousIDs;
 
-        if (!treeID.equals("NULL")) // skip root name
-            currentIDs.add(treeID);
-
-        // create list for result
-        List<Condition> conditions = new ArrayList<>();
+        if (tree.id >= 0)
+        {
+            currentIDs = Arrays.copyOf(previousIDs, previousIDs.length + 1);
+            currentIDs[previousIDs.length] = symbols.name(tree.id);
+        }
 
         if (tree.isLeaf())
         {
             // reached leaf node -> go through leaf content
-            for (String leafID : tree.data.get(subject))
+            for (int leafID : tree.getRow(subject))
             {
-                // copy current list and extend
-                List<String> currentCopy = new ArrayList<>(currentIDs);
-                currentCopy.add(leafID);
-
-                // merge from root until here
-                Condition condition = new Condition(merger.apply(currentCopy.toArray(new String[0])));
-                conditions.add(condition);
+                // merge from root until here, keeping the identifiers as factors
+                String[] factors = Arrays.copyOf(currentIDs, currentIDs.length + 1);
+                factors[currentIDs.length] = symbols.name(leafID);
+                conditions.add(conditionOf.apply(factors));
             }
         }
         else
         {
-            // go recursive for children and combine their results
-            // for all children
-            for (String childID : tree.data.get(subject))
-            {
-                // get child node for this child identifier
-                TreeNode<Map<Integer, List<String>>> childNode = findChild(tree, childID);
-
-                // go recursive to get all underlying conditions
-                List<Condition> childConditions = mergeTree(subject, childNode, currentIDs, merger);
-
-                // add them to the list
-                conditions.addAll(childConditions);
-            }
-        }
-
-        return conditions;
-    }
-
-    /**
-     * Returns a set of all identifiers in the given node (ignoring children).
-     * @param node to search in
-     * @return set of identifiers
-     */
-    private static Set<String> collectIdentifiers(TreeNode<Map<Integer, List<String>>> node)
-    {
-        Set<String> ids = new HashSet<>();
-
-        for (int key : node.data.keySet())
-        {
-            if (key >= 0) // ignore -1
-                ids.addAll(node.data.get(key));
+            // go recursive for children and collect their results
+            for (int childID : tree.getRow(subject))
+                mergeTree(subject, tree.findChild(childID), symbols, currentIDs, conditionOf, conditions);
         }
-
-        return ids;
-    }
-
-    /**
-     * Returns the child with given identifier or null if not found.
-     * @param node to search in
-     * @param id to find
-     * @return child node or null
-     */
-    private static TreeNode<Map<Integer, List<String>>> findChild
-            (TreeNode<Map<Integer, List<String>>> node, String id)
-    {
-        if (node.isLeaf())
-            return null;
-
-        for (TreeNode<Map<Integer, List<String>>> child : node.children)
-        {
-            if (child.data.get(-1).get(0).equals(id))
-                return child;
-        }
-
-        return null;
-    }
-
-    /**
-     * Collapses a given list of strings to list of a single string.
-     * @param list of strings
-     * @param connector between the strings
-     * @return one element list
-     */
-    private static List<String> collapseList(List<String> list, String connector)
-    {
-        List<String> c = new ArrayList<>();
-        c.add(String.join(connector, list));
-        return c;
-    }
-
-    /**
-     * Collapses a given tree node's content list (preserving the -1 entry).
-     * @param node to collapse
-     * @param connector between the identifiers
-     * @return new tree node
-     */
-    private static TreeNode<Map<Integer, List<String>>> collapseNode
-            (TreeNode<Map<Integer, List<String>>> node, String connector)
-    {
-        TreeNode<Map<Integer, List<String>>> collapsed = new TreeNode<>(new HashMap<>());
-
-        for (int key : node.data.keySet())
-        {
-            if (key >= 0)
-                collapsed.data.put(key, collapseList(node.data.get(key), connector));
-            else
-                collapsed.data.put(key, node.data.get(key));
-        }
-
-        return collapsed;
     }
 
     /**
@@ -300,18 +359,37 @@ public class ExperimentReader {
         for (File file : files)
         {
             if (starting && file.getName().startsWith(name)
-                || !starting && file.getName().endsWith(name))
+                || !starting && endsWithIdentifier(file.getName(), name))
                 return file;
         }
         return null;
     }
 
+    /**
+     * Returns if a file name ends with the given identifier. A digit directly in front of a numeric
+     * identifier does not count, so Condition11 ends with 11 but not with 1.
+     * @param name of file
+     * @param id to check
+     * @return if the name ends with the identifier
+     */
+    static boolean endsWithIdentifier(String name, String id)
+    {
+        if (!name.endsWith(id))
+            return false;
+
+        if (name.length() == id.length() || id.isEmpty())
+            return true;
+
+        return !(Character.isDigit(id.charAt(0)) && Character.isDigit(name.charAt(name.length() - id.length() - 1)));
+    }
+
     /**
      * Reads and returns all lines separately from a given file.
      * Note: Ignores lines starting with # as comments.
      * @param directory of file
      * @param fileName of file
      * @return list of line strings
+     * @throws UncheckedIOException if the file cannot be read
      */
     private static List<String> readAllLines(File directory, String fileName)
     {
@@ -319,19 +397,23 @@ public class ExperimentReader {
             throw new IllegalArgumentException("Provided directory was not a directory: " + directory.getPath());
 
         List<String> lines = null;
+        String filePath = directory.getPath() + "/" + fileName;
+        long bytes = 0;
 
         try {
-            String filePath = directory.getPath() + "/" + fileName;
             Path path = Paths.get(filePath);
-            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            byte[] content = Files.readAllBytes(path);
+            bytes = content.length;
+            lines = new String(content, StandardCharsets.UTF_8).lines().collect(Collectors.toList());
         }
         catch (IOException e)
         {
-            e.printStackTrace();
-            return null;
+            Metrics.get().error(filePath, e);
+            throw new UncheckedIOException("Cannot read " + filePath, e);
         }
 
         lines.removeIf(l -> l.stripLeading().startsWith("#") || l.strip().isEmpty());
+        Metrics.get().fileRead(new File(filePath), bytes, lines.size());
         return lines;
     }
 }
@@ -0,0 +1,17 @@
+package com.marcruble.reader;
+
+/**
+ * Decides how description files with different numbers of rows are handled
+ * when the number of participants is determined from the files.
+ */
+public enum RowPolicy {
+
+    /** Use the largest number of rows, files with fewer rows start again at their first row. */
+    CYCLE,
+
+    /** Use the smallest number of rows, additional rows in other files are ignored. */
+    TRUNCATE,
+
+    /** All files have to contain the same number of rows. */
+    ERROR
+}
@@ -0,0 +1,50 @@
+package com.marcruble.reader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the identifiers read from a description, so every distinct identifier
+ * is stored once and the rows can refer to it by a small int.
+ */
+class SymbolTable {
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Returns the symbol of an identifier, adding it if it was not seen before.
+     * @param name identifier
+     * @return symbol
+     */
+    int intern(String name)
+    {
+        Integer symbol = symbols.get(name);
+
+        if (symbol == null)
+        {
+            symbol = names.size();
+            symbols.put(name, symbol);
+            names.add(name);
+        }
+
+        return symbol;
+    }
+
+    /**
+     * Returns the identifier of a symbol.
+     * @param symbol previously returned by intern
+     * @return identifier
+     */
+    String name(int symbol)
+    {
+        return names.get(symbol);
+    }
+
+    int size()
+    {
+        return names.size();
+    }
+}
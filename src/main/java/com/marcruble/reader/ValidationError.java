@@ -0,0 +1,66 @@
+package com.marcruble.reader;
+
+import java.io.File;
+
+/**
+ * Describes a single problem found in a description file.
+ */
+public class ValidationError implements Comparable<ValidationError> {
+
+    private final File file;
+
+    // line in the file, starting with 1 (0 if the whole file is concerned)
+    private final int line;
+
+    // column in the line, starting with 1 (0 if the whole line is concerned)
+    private final int column;
+
+    private final String message;
+
+    public ValidationError(File file, int line, int column, String message)
+    {
+        this.file = file;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    public int getLine()
+    {
+        return line;
+    }
+
+    public int getColumn()
+    {
+        return column;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+
+    @Override
+    public int compareTo(ValidationError other)
+    {
+        int byFile = file.getPath().compareTo(other.file.getPath());
+
+        if (byFile != 0)
+            return byFile;
+        if (line != other.line)
+            return Integer.compare(line, other.line);
+
+        return Integer.compare(column, other.column);
+    }
+
+    @Override
+    public String toString()
+    {
+        return file.getPath() + ":" + line + ":" + column + ": " + message;
+    }
+}
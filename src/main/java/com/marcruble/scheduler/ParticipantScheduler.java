@@ -0,0 +1,334 @@
+package com.marcruble.scheduler;
+
+import com.marcruble.common.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out rows of a design to arriving participants, safe to be used by
+ * many stations at the same time. Each row is handed out at most once unless
+ * it was released again (e.g. for a no-show).
+ * Every assignment and release is appended to a journal file, so the state
+ * can be recovered by creating a new scheduler on the same journal. Each entry
+ * is a complete line, an incomplete last line left by a crash is cut off when
+ * the journal is opened again. Only one scheduler at a time can use a journal.
+ */
+public class ParticipantScheduler implements Closeable {
+
+    // journal entry for an assigned row, e.g. "A 3 station1"
+    private static final String ASSIGN = "A";
+
+    // journal entry for a released row, e.g. "R 3"
+    private static final String RELEASE = "R";
+
+    // number of rows which can be handed out
+    private final int numRows;
+
+    // next row which was never handed out before
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    // rows which were handed out but released again
+    private final ConcurrentLinkedQueue<Integer> released = new ConcurrentLinkedQueue<>();
+
+    // rows currently assigned to a participant
+    private final Set<Integer> assigned = ConcurrentHashMap.newKeySet();
+
+    // append-only journal, null if not persisted
+    private final FileChannel journal;
+
+    // exclusive lock on the journal, so no other scheduler hands out the same rows
+    private final FileLock lock;
+
+    /**
+     * Creates a scheduler for the given number of rows without journal.
+     * @param numRows number of rows which can be handed out
+     */
+    public ParticipantScheduler(int numRows)
+    {
+        if (numRows < 0)
+            throw new IllegalArgumentException("Number of rows must not be negative: " + numRows);
+
+        this.numRows = numRows;
+        this.journal = null;
+        this.lock = null;
+    }
+
+    /**
+     * Creates a scheduler for the given number of rows which persists its state in the given journal.
+     * If the journal already exists, the state is recovered from it first.
+     * @param numRows number of rows which can be handed out
+     * @param journalFile file to append assignments and releases to
+     * @throws IllegalStateException if another scheduler uses the journal
+     */
+    public ParticipantScheduler(int numRows, File journalFile)
+    {
+        if (numRows < 0)
+            throw new IllegalArgumentException("Number of rows must not be negative: " + numRows);
+
+        this.numRows = numRows;
+
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(journalFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.lock = tryLock(channel, journalFile);
+            this.journal = channel;
+
+            recover(readCompleteLines(channel));
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(channel);
+
+            if (e instanceof IOException)
+                throw new UncheckedIOException("Could not open journal " + journalFile.getPath(), (IOException) e);
+
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Creates a scheduler for an experiment. A participant is given the same row in all tasks,
+     * so only as many rows as the smallest task has can be handed out.
+     * @param experiment to hand out rows of
+     * @param journalFile file to append assignments and releases to
+     * @return scheduler
+     */
+    public static ParticipantScheduler forExperiment(Experiment experiment, File journalFile)
+    {
+        return new ParticipantScheduler(experiment.getNumberOfParticipants(), journalFile);
+    }
+
+    /**
+     * Hands out the next unused row. Released rows are handed out first,
+     * so the design stays as complete as possible.
+     * @param station name of the station asking, only used for the journal
+     * @return row index or -1 if all rows are assigned
+     */
+    public int assign(String station)
+    {
+        // prefer rows of no-shows
+        Integer row = released.poll();
+
+        if (row == null)
+        {
+            // take next fresh row without ever going beyond the end
+            int next = cursor.getAndUpdate(c -> c < numRows ? c + 1 : c);
+
+            if (next >= numRows)
+                return -1;
+
+            row = next;
+        }
+
+        // journal first, so a row is never assigned without being recorded
+        try {
+            append(ASSIGN + " " + row + " " + (station.isBlank() ? "-" : station.strip().replaceAll("\\s+", "_")));
+        } catch (UncheckedIOException e) {
+            // keep the row available instead of losing it
+            released.offer(row);
+            throw e;
+        }
+
+        assigned.add(row);
+        return row;
+    }
+
+    /**
+     * Returns a row which was assigned to a participant who did not show up.
+     * @param row to release
+     */
+    public void release(int row)
+    {
+        // one release at a time, so a row cannot be released twice between the check and the journal
+        synchronized (assigned)
+        {
+            // only an assigned row may come back, otherwise it could be handed out twice
+            if (!assigned.contains(row))
+                throw new IllegalArgumentException("Row was not assigned: " + row);
+
+            // journal first, if it fails the row stays assigned
+            append(RELEASE + " " + row);
+            assigned.remove(row);
+            released.offer(row);
+        }
+    }
+
+    public boolean isAssigned(int row)
+    {
+        return assigned.contains(row);
+    }
+
+    /**
+     * Returns how many rows can still be handed out.
+     * @return number of remaining rows
+     */
+    public int getRemaining()
+    {
+        return numRows - cursor.get() + released.size();
+    }
+
+    public int getNumberOfRows()
+    {
+        return numRows;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        // closing the channel also releases the lock
+        if (journal != null)
+            journal.close();
+    }
+
+    /**
+     * Takes an exclusive lock on the journal.
+     * @param channel of the journal
+     * @param journalFile for the error message
+     * @return lock
+     * @throws IOException if locking fails
+     */
+    private static FileLock tryLock(FileChannel channel, File journalFile) throws IOException
+    {
+        FileLock lock;
+
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+
+        if (lock == null)
+            throw new IllegalStateException("Journal is used by another scheduler: " + journalFile.getPath());
+
+        return lock;
+    }
+
+    /**
+     * Reads the complete lines of the journal and cuts off an incomplete last line,
+     * e.g. from a crash while writing. New entries are appended after the last complete line.
+     * @param channel of the journal
+     * @return complete lines
+     * @throws IOException if reading fails
+     */
+    private static List<String> readCompleteLines(FileChannel channel) throws IOException
+    {
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+
+        while (content.hasRemaining())
+        {
+            if (channel.read(content, content.position()) < 0)
+                break;
+        }
+
+        int end = content.position();
+
+        while (end > 0 && content.get(end - 1) != '\n')
+            end--;
+
+        channel.truncate(end);
+        channel.position(end);
+
+        String text = new String(content.array(), 0, end, StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : Arrays.asList(text.split("\n"));
+    }
+
+    /**
+     * Replays the entries of a journal to restore the state.
+     * @param lines of the journal, each a complete entry
+     */
+    private void recover(List<String> lines)
+    {
+        int highest = -1;
+
+        for (int l = 0; l < lines.size(); l++)
+        {
+            String[] parts = lines.get(l).split(" ");
+
+            // complete entries are "A row station" or "R row"
+            boolean valid = parts.length >= 2 && parts[1].matches("\\d{1,9}")
+                    && (parts[0].equals(ASSIGN) && parts.length == 3 || parts[0].equals(RELEASE) && parts.length == 2);
+
+            if (!valid)
+                throw new IllegalStateException("Invalid journal entry in line " + (l + 1) + ": " + lines.get(l));
+
+            int row = Integer.parseInt(parts[1]);
+
+            if (row >= numRows)
+                throw new IllegalStateException("Invalid journal entry in line " + (l + 1) + ": " + lines.get(l)
+                        + ", there are only " + numRows + " rows");
+
+            // a row is assigned again only after a release, and only an assigned row is released
+            if (parts[0].equals(ASSIGN) == assigned.contains(row))
+                throw new IllegalStateException("Invalid journal entry in line " + (l + 1) + ": " + lines.get(l)
+                        + ", row is " + (assigned.contains(row) ? "already" : "not") + " assigned");
+
+            highest = Math.max(highest, row);
+
+            if (parts[0].equals(ASSIGN))
+            {
+                assigned.add(row);
+                released.remove(row);
+            }
+            else if (parts[0].equals(RELEASE))
+            {
+                assigned.remove(row);
+                released.offer(row);
+            }
+        }
+
+        cursor.set(Math.min(highest + 1, numRows));
+    }
+
+    private static void closeQuietly(FileChannel channel)
+    {
+        if (channel == null)
+            return;
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already failing, keep the original error
+        }
+    }
+
+    /**
+     * Appends a single entry to the journal and forces it to disk.
+     * @param entry to write
+     */
+    private void append(String entry)
+    {
+        if (journal == null)
+            return;
+
+        try {
+            // entries end with a newline, so an interrupted write can be detected
+            ByteBuffer buffer = ByteBuffer.wrap((entry + "\n").getBytes(StandardCharsets.UTF_8));
+
+            // stations share the channel, so each entry is written as a whole
+            synchronized (journal)
+            {
+                while (buffer.hasRemaining())
+                    journal.write(buffer);
+
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to journal", e);
+        }
+    }
+}
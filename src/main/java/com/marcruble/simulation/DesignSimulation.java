@@ -0,0 +1,220 @@
+package com.marcruble.simulation;
+
+import com.marcruble.common.*;
+import com.marcruble.generators.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates synthetic datasets for a design to see how position and carry-over effects
+ * bias the estimated mean of each condition. Replications run in parallel, each with its
+ * own random number stream, so results only depend on the seed and not on the number of threads.
+ */
+public class DesignSimulation {
+
+    // number of replications simulated together with one accumulator
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Simulates the given task.
+     * @param task design with a row of conditions per participant
+     * @param model of the measurements
+     * @param replications number of simulated datasets
+     * @param seed for the random numbers
+     * @return bias and variance per condition
+     */
+    public static SimulationResult run(Task task, EffectsModel model, int replications, long seed)
+    {
+        checkReplications(replications);
+
+        List<List<String>> rows = new ArrayList<>();
+
+        for (int p = 0; p < task.getNumberOfRows(); p++)
+        {
+            rows.add(task.getConditions(p).stream()
+                    .map(Condition::getId)
+                    .collect(Collectors.toList()));
+        }
+
+        return run(rows, model, replications, seed);
+    }
+
+    /**
+     * Simulates a generated square, using the numbers in its cells as condition identifiers.
+     * @param square design with a row of conditions per participant
+     * @param model of the measurements
+     * @param replications number of simulated datasets
+     * @param seed for the random numbers
+     * @return bias and variance per condition
+     */
+    public static SimulationResult run(Square square, EffectsModel model, int replications, long seed)
+    {
+        checkReplications(replications);
+
+        List<List<String>> rows = new ArrayList<>();
+
+        for (int i = 0; i < square.getRows(); i++)
+        {
+            List<String> row = new ArrayList<>();
+
+            for (int j = 0; j < square.getColumns(); j++)
+                row.add(Integer.toString(square.get(i, j)));
+
+            rows.add(row);
+        }
+
+        return run(rows, model, replications, seed);
+    }
+
+    /**
+     * Simulates the first square created by a generator, e.g. to compare candidate designs.
+     * @param generator to create the design with
+     * @param parameters for the generator
+     * @param model of the measurements
+     * @param replications number of simulated datasets
+     * @param seed for the random numbers
+     * @return bias and variance per condition
+     */
+    public static SimulationResult run(SquareGenerator generator, Map<String, String> parameters,
+                                       EffectsModel model, int replications, long seed)
+    {
+        checkReplications(replications);
+
+        Square square = generator.generate(parameters).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Generator created no square"));
+
+        return run(square, model, replications, seed);
+    }
+
+    private static SimulationResult run(List<List<String>> rows, EffectsModel model, int replications, long seed)
+    {
+        // number the conditions in order of appearance
+        Map<String, Integer> ordinals = new LinkedHashMap<>();
+        int[][] design = new int[rows.size()][];
+
+        for (int p = 0; p < rows.size(); p++)
+        {
+            design[p] = new int[rows.get(p).size()];
+
+            for (int j = 0; j < design[p].length; j++)
+                design[p][j] = ordinals.computeIfAbsent(rows.get(p).get(j), c -> ordinals.size());
+        }
+
+        List<String> conditions = new ArrayList<>(ordinals.keySet());
+        int m = conditions.size();
+
+        // the part of each measurement which is the same in every replication
+        double[][] fixed = new double[design.length][];
+        int[] counts = new int[m];
+
+        for (int p = 0; p < design.length; p++)
+        {
+            fixed[p] = new double[design[p].length];
+
+            for (int j = 0; j < design[p].length; j++)
+            {
+                fixed[p][j] = model.getMean()
+                        + model.getConditionEffect(conditions.get(design[p][j]))
+                        + j * model.getPositionEffect();
+
+                if (j > 0)
+                    fixed[p][j] += model.getCarryOverEffect(conditions.get(design[p][j-1]));
+
+                counts[design[p][j]]++;
+            }
+        }
+
+        // one random stream per chunk, split off in order to be independent of the threads
+        int chunks = (replications + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+
+        for (int c = 0; c < chunks; c++)
+            streams[c] = root.split();
+
+        // mean and sum of squared deviations of the estimated mean of each condition per chunk
+        List<double[]> moments = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> simulateChunk(design, fixed, counts, model, streams[c],
+                        Math.min(CHUNK_SIZE, replications - c * CHUNK_SIZE)))
+                .collect(Collectors.toList());
+
+        // combine the chunks in order (Chan et al.), so the result does not depend on the threads
+        double[] estimates = new double[m];
+        double[] squaredDeviations = new double[m];
+        long combined = 0;
+
+        for (int c = 0; c < chunks; c++)
+        {
+            double[] chunk = moments.get(c);
+            long n = Math.min(CHUNK_SIZE, replications - (long) c * CHUNK_SIZE);
+            long total = combined + n;
+
+            for (int k = 0; k < m; k++)
+            {
+                double delta = chunk[k] - estimates[k];
+                estimates[k] += delta * n / total;
+                squaredDeviations[k] += chunk[m + k] + delta * delta * combined * n / total;
+            }
+
+            combined = total;
+        }
+
+        double[] trueMeans = new double[m];
+        double[] variances = new double[m];
+
+        for (int k = 0; k < m; k++)
+        {
+            trueMeans[k] = model.getMean() + model.getConditionEffect(conditions.get(k));
+            variances[k] = replications < 2 ? 0 : squaredDeviations[k] / (replications - 1);
+        }
+
+        return new SimulationResult(conditions, trueMeans, estimates, variances, replications);
+    }
+
+    /**
+     * Simulates a number of replications and accumulates the estimated means with Welford's method.
+     * @return means of the estimates followed by sums of their squared deviations, one per condition
+     */
+    private static double[] simulateChunk(int[][] design, double[][] fixed, int[] counts, EffectsModel model,
+                                          SplittableRandom random, int replications)
+    {
+        int m = counts.length;
+        double[] result = new double[2 * m];
+        double[] sums = new double[m];
+        double participantDeviation = model.getParticipantDeviation();
+        double noiseDeviation = model.getNoiseDeviation();
+
+        for (int r = 0; r < replications; r++)
+        {
+            // own stream for each replication
+            SplittableRandom replication = random.split();
+            Arrays.fill(sums, 0);
+
+            for (int p = 0; p < design.length; p++)
+            {
+                double participant = participantDeviation * replication.nextGaussian();
+
+                for (int j = 0; j < design[p].length; j++)
+                    sums[design[p][j]] += fixed[p][j] + participant + noiseDeviation * replication.nextGaussian();
+            }
+
+            for (int k = 0; k < m; k++)
+            {
+                double estimate = sums[k] / counts[k];
+                double delta = estimate - result[k];
+                result[k] += delta / (r + 1);
+                result[m + k] += delta * (estimate - result[k]);
+            }
+        }
+
+        return result;
+    }
+
+    private static void checkReplications(int replications)
+    {
+        if (replications < 1)
+            throw new IllegalArgumentException("Number of replications must be positive: " + replications);
+    }
+}
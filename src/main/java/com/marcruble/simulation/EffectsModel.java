@@ -0,0 +1,104 @@
+package com.marcruble.simulation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simple additive model of a measurement in a trial:
+ * mean + condition effect + position effect + carry-over of the previous condition
+ * + participant effect + noise. Participant effects and noise are normally distributed.
+ */
+public class EffectsModel {
+
+    private double mean = 0;
+
+    // effect of each condition by identifier, 0 if missing
+    private final Map<String, Double> conditionEffects = new HashMap<>();
+
+    // effect added for each later position in a row, e.g. for practice or fatigue
+    private double positionEffect = 0;
+
+    // effect of the previous condition on the current trial, 0 if missing
+    private final Map<String, Double> carryOverEffects = new HashMap<>();
+
+    private double participantDeviation = 0;
+
+    private double noiseDeviation = 1;
+
+    public EffectsModel setMean(double mean)
+    {
+        this.mean = mean;
+        return this;
+    }
+
+    public EffectsModel setConditionEffect(String condition, double effect)
+    {
+        conditionEffects.put(condition, effect);
+        return this;
+    }
+
+    /**
+     * Sets a linear effect of the position in the row.
+     * @param effect added per position (0 for the first trial)
+     * @return this model
+     */
+    public EffectsModel setPositionEffect(double effect)
+    {
+        this.positionEffect = effect;
+        return this;
+    }
+
+    /**
+     * Sets the effect a condition has on the trial directly following it.
+     * @param condition identifier of the previous condition
+     * @param effect added to the following trial
+     * @return this model
+     */
+    public EffectsModel setCarryOverEffect(String condition, double effect)
+    {
+        carryOverEffects.put(condition, effect);
+        return this;
+    }
+
+    public EffectsModel setParticipantDeviation(double deviation)
+    {
+        this.participantDeviation = deviation;
+        return this;
+    }
+
+    public EffectsModel setNoiseDeviation(double deviation)
+    {
+        this.noiseDeviation = deviation;
+        return this;
+    }
+
+    public double getMean()
+    {
+        return mean;
+    }
+
+    public double getConditionEffect(String condition)
+    {
+        return conditionEffects.getOrDefault(condition, 0.0);
+    }
+
+    public double getPositionEffect()
+    {
+        return positionEffect;
+    }
+
+    public double getCarryOverEffect(String condition)
+    {
+        return carryOverEffects.getOrDefault(condition, 0.0);
+    }
+
+    public double getParticipantDeviation()
+    {
+        return participantDeviation;
+    }
+
+    public double getNoiseDeviation()
+    {
+        return noiseDeviation;
+    }
+}
@@ -0,0 +1,85 @@
+package com.marcruble.simulation;
+
+import java.util.List;
+
+/**
+ * Bias and variance of the estimated mean of each condition over all replications.
+ */
+public class SimulationResult {
+
+    private final List<String> conditions;
+    private final double[] trueMeans;
+    private final double[] meanEstimates;
+    private final double[] variances;
+    private final int replications;
+
+    SimulationResult(List<String> conditions, double[] trueMeans, double[] meanEstimates,
+                     double[] variances, int replications)
+    {
+        this.conditions = conditions;
+        this.trueMeans = trueMeans;
+        this.meanEstimates = meanEstimates;
+        this.variances = variances;
+        this.replications = replications;
+    }
+
+    public List<String> getConditions()
+    {
+        return conditions;
+    }
+
+    public int getReplications()
+    {
+        return replications;
+    }
+
+    /**
+     * Returns the mean of a condition without position and carry-over effects.
+     * @param index of the condition in {@link #getConditions()}
+     * @return true mean
+     */
+    public double getTrueMean(int index)
+    {
+        return trueMeans[index];
+    }
+
+    /**
+     * Returns the average estimate of the mean of a condition over all replications.
+     * @param index of the condition in {@link #getConditions()}
+     * @return average estimate
+     */
+    public double getMeanEstimate(int index)
+    {
+        return meanEstimates[index];
+    }
+
+    public double getBias(int index)
+    {
+        return meanEstimates[index] - trueMeans[index];
+    }
+
+    /**
+     * Returns the variance of the estimate of the mean of a condition between replications.
+     * @param index of the condition in {@link #getConditions()}
+     * @return variance
+     */
+    public double getVariance(int index)
+    {
+        return variances[index];
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("condition | true mean | estimate | bias | variance\n");
+
+        for (int i = 0; i < conditions.size(); i++)
+        {
+            sb.append(String.format("%s | %.4f | %.4f | %.4f | %.4f%n", conditions.get(i),
+                    trueMeans[i], meanEstimates[i], getBias(i), variances[i]));
+        }
+
+        sb.append(replications).append(" replications");
+        return sb.toString();
+    }
+}
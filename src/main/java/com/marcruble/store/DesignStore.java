@@ -0,0 +1,384 @@
+package com.marcruble.store;
+
+import com.marcruble.common.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Keeps a whole experiment in a single memory-mapped file, so several processes (e.g. one per station)
+ * can share one copy of the design instead of each reading the description into its own heap.
+ * The file is written once and then mapped read-only, rows are served directly from the mapping.
+ * <p>
+ * Layout (little-endian 32-bit integers, strings as byte length followed by UTF-8 bytes):
+ * <pre>
+ * header:      magic, version, number of conditions, number of tasks, offset of task table
+ * dictionary:  per condition: id, number of factors, factors
+ * task table:  per task: offset of its section
+ * task:        number of rows, row offsets (number of rows + 1, in cells), cells (condition codes)
+ * </pre>
+ */
+public class DesignStore {
+
+    // "EXDS" in ASCII
+    private static final int MAGIC = 0x45584453;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    // read-only mapping of the whole file
+    private final ByteBuffer buffer;
+
+    // decoded dictionary, indexed by condition code
+    private final Condition[] conditions;
+
+    // byte offset of each task section
+    private final int[] taskOffsets;
+
+    private DesignStore(ByteBuffer buffer, Condition[] conditions, int[] taskOffsets)
+    {
+        this.buffer = buffer;
+        this.conditions = conditions;
+        this.taskOffsets = taskOffsets;
+    }
+
+    /**
+     * Writes an experiment into a store file. The file is written next to the target and then moved,
+     * so processes opening the store never see a partially written file.
+     * @param experiment to store
+     * @param file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Experiment experiment, File file) throws IOException
+    {
+        List<Task> tasks = experiment.getTasks();
+
+        // dictionary of conditions in order of first appearance
+        Map<String, Integer> codes = new HashMap<>();
+        List<Condition> dictionary = new ArrayList<>();
+        long[] taskBytes = new long[tasks.size()];
+        long dictionaryBytes = 0;
+
+        // codes of all cells and the offset of each row, so each row is determined only once
+        // (rows of a lazy task are not resolved again for writing)
+        int[][] rowOffsets = new int[tasks.size()][];
+        IntBuffer[] cellCodes = new IntBuffer[tasks.size()];
+
+        for (int t = 0; t < tasks.size(); t++)
+        {
+            Task task = tasks.get(t);
+            int[] offsets = new int[task.getNumberOfRows() + 1];
+            IntBuffer cells = IntBuffer.allocate(Math.max(16, task.getNumberOfRows()));
+
+            for (int p = 0; p < task.getNumberOfRows(); p++)
+            {
+                List<Condition> conditions = task.getConditions(p);
+
+                if (cells.remaining() < conditions.size())
+                    cells = grow(cells, conditions.size());
+
+                for (Condition condition : conditions)
+                {
+                    Integer code = codes.get(condition.getId());
+
+                    if (code == null)
+                    {
+                        code = dictionary.size();
+                        codes.put(condition.getId(), code);
+                        dictionary.add(condition);
+                        dictionaryBytes += encodedSize(condition);
+                    }
+
+                    cells.put(code);
+                }
+
+                offsets[p + 1] = cells.position();
+            }
+
+            rowOffsets[t] = offsets;
+            cellCodes[t] = cells.flip();
+            taskBytes[t] = (long) Integer.BYTES * (2 + task.getNumberOfRows() + cells.limit());
+        }
+
+        // compute the offsets of all sections
+        int[] taskOffsets = new int[tasks.size()];
+        long size = HEADER_BYTES + dictionaryBytes;
+        long tableOffset = size;
+        size += (long) Integer.BYTES * tasks.size();
+
+        for (int t = 0; t < tasks.size(); t++)
+        {
+            taskOffsets[t] = (int) size;
+            size += taskBytes[t];
+        }
+
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Experiment is too large for a design store: " + size + " bytes");
+
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+
+            // header
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(dictionary.size());
+            out.putInt(tasks.size());
+            out.putInt((int) tableOffset);
+
+            // dictionary
+            for (Condition condition : dictionary)
+            {
+                putString(out, condition.getId());
+                out.putInt(condition.getNumberOfFactors());
+
+                for (int d = 0; d < condition.getNumberOfFactors(); d++)
+                    putString(out, condition.getFactor(d));
+            }
+
+            // task table
+            for (int offset : taskOffsets)
+                out.putInt(offset);
+
+            // tasks: number of rows, row offsets and cells
+            for (int t = 0; t < tasks.size(); t++)
+            {
+                out.putInt(rowOffsets[t].length - 1);
+
+                for (int offset : rowOffsets[t])
+                    out.putInt(offset);
+
+                IntBuffer cells = cellCodes[t];
+                while (cells.hasRemaining())
+                    out.putInt(cells.get());
+            }
+
+            out.force();
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a store file read-only. Only the dictionary is decoded, rows stay in the mapping.
+     * @param file written by {@link #write(Experiment, File)}
+     * @return opened store
+     * @throws IOException if the file cannot be read or is not a design store
+     */
+    public static DesignStore open(File file) throws IOException
+    {
+        ByteBuffer buffer;
+
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a design store: " + file.getPath());
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported design store version " + buffer.getInt(4) + ": " + file.getPath());
+
+        int numConditions = buffer.getInt(8);
+        int numTasks = buffer.getInt(12);
+        int tableOffset = buffer.getInt(16);
+
+        // decode dictionary
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        in.position(HEADER_BYTES);
+        Condition[] conditions = new Condition[numConditions];
+
+        for (int c = 0; c < numConditions; c++)
+        {
+            String id = getString(in);
+            String[] factors = new String[in.getInt()];
+
+            for (int d = 0; d < factors.length; d++)
+                factors[d] = getString(in);
+
+            conditions[c] = new Condition(id, factors);
+        }
+
+        int[] taskOffsets = new int[numTasks];
+        for (int t = 0; t < numTasks; t++)
+            taskOffsets[t] = buffer.getInt(tableOffset + t * Integer.BYTES);
+
+        return new DesignStore(buffer, conditions, taskOffsets);
+    }
+
+    public int getNumberOfTasks()
+    {
+        return taskOffsets.length;
+    }
+
+    public int getNumberOfConditions()
+    {
+        return conditions.length;
+    }
+
+    /**
+     * Returns the condition with given code.
+     * @param code as returned by getConditionIds
+     * @return condition
+     */
+    public Condition getCondition(int code)
+    {
+        return conditions[code];
+    }
+
+    /**
+     * Returns the number of rows (participants/groups) of a task.
+     * @param task index, starting at 0
+     * @return number of rows
+     */
+    public int getNumberOfRows(int task)
+    {
+        return buffer.getInt(taskOffset(task));
+    }
+
+    /**
+     * Returns the condition codes of a participant in a task as a view of the mapping, nothing is copied.
+     * @param task index, starting at 0
+     * @param participant index
+     * @return read-only buffer of condition codes
+     */
+    public IntBuffer getConditionIds(int task, int participant)
+    {
+        int from = cellOffset(task, participant);
+        int to = cellOffset(task, participant + 1);
+
+        return buffer.duplicate().position(from).limit(to).slice()
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Returns the number of conditions of a participant in a task.
+     * @param task index, starting at 0
+     * @param participant index
+     * @return number of conditions
+     */
+    public int getNumberOfConditions(int task, int participant)
+    {
+        return (cellOffset(task, participant + 1) - cellOffset(task, participant)) / Integer.BYTES;
+    }
+
+    /**
+     * Returns the code of a condition of a participant in a task.
+     * @param task index, starting at 0
+     * @param participant index
+     * @param index of the condition in the participant's row
+     * @return condition code
+     */
+    public int getConditionId(int task, int participant, int index)
+    {
+        return buffer.getInt(cellOffset(task, participant) + index * Integer.BYTES);
+    }
+
+    /**
+     * Returns a task serving its rows from this store.
+     * @param task index, starting at 0
+     * @return task backed by the mapping
+     */
+    public MappedTask getTask(int task)
+    {
+        taskOffset(task);
+        return new MappedTask(this, task);
+    }
+
+    /**
+     * Returns an experiment of all tasks in this store, each backed by the mapping.
+     * @return experiment
+     */
+    public Experiment toExperiment()
+    {
+        Experiment experiment = new Experiment();
+
+        for (int t = 0; t < getNumberOfTasks(); t++)
+            experiment.addTask(getTask(t));
+
+        return experiment;
+    }
+
+    /**
+     * Returns the byte offset of the first cell of a row in the mapping.
+     * @param task index
+     * @param row index, the number of rows gives the end of the last row
+     * @return byte offset
+     */
+    private int cellOffset(int task, int row)
+    {
+        int offset = taskOffset(task);
+        int numRows = buffer.getInt(offset);
+
+        if (row < 0 || row > numRows)
+            throw new IndexOutOfBoundsException("Row " + row + " of task " + task + " with " + numRows + " rows");
+
+        // cells follow the number of rows and the row offsets
+        int cells = offset + Integer.BYTES * (2 + numRows);
+        return cells + Integer.BYTES * buffer.getInt(offset + Integer.BYTES * (1 + row));
+    }
+
+    /**
+     * Returns the byte offset of a task in the mapping.
+     * @param task index
+     * @return byte offset
+     */
+    private int taskOffset(int task)
+    {
+        if (task < 0 || task >= taskOffsets.length)
+            throw new IndexOutOfBoundsException("Task " + task + " of store with " + taskOffsets.length + " tasks");
+
+        return taskOffsets[task];
+    }
+
+    /**
+     * Returns a larger buffer with the contents of the given one, with room for at least the given number of values.
+     */
+    private static IntBuffer grow(IntBuffer buffer, int needed)
+    {
+        IntBuffer larger = IntBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        return larger.put(buffer.flip());
+    }
+
+    private static long encodedSize(Condition condition)
+    {
+        long size = Integer.BYTES + Integer.BYTES + condition.getId().getBytes(StandardCharsets.UTF_8).length;
+
+        for (int d = 0; d < condition.getNumberOfFactors(); d++)
+            size += Integer.BYTES + condition.getFactor(d).getBytes(StandardCharsets.UTF_8).length;
+
+        return size;
+    }
+
+    private static void putString(ByteBuffer out, String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in)
+    {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package com.marcruble.store;
+
+import com.marcruble.common.*;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents a task whose rows are read from a design store. Rows are views of the
+ * mapped file, so no row is copied onto the heap when it is accessed.
+ */
+public class MappedTask extends Task {
+
+    private final DesignStore store;
+    private final int task;
+
+    MappedTask(DesignStore store, int task)
+    {
+        this.store = store;
+        this.task = task;
+    }
+
+    @Override
+    public void addRow()
+    {
+        throw new UnsupportedOperationException("Rows of a mapped task are read from its design store");
+    }
+
+    @Override
+    public void addCondition(Condition condition)
+    {
+        throw new UnsupportedOperationException("Rows of a mapped task are read from its design store");
+    }
+
+    @Override
+    public List<Condition> getConditions(int participant)
+    {
+        if (participant < 0 || participant >= getNumberOfRows())
+            return null;
+
+        return new Row(participant);
+    }
+
+    @Override
+    public int getNumberOfRows()
+    {
+        return store.getNumberOfRows(task);
+    }
+
+    /**
+     * Read-only view of the conditions of a participant.
+     */
+    private class Row extends AbstractList<Condition> implements RandomAccess {
+
+        private final int participant;
+        private final int size;
+
+        Row(int participant)
+        {
+            this.participant = participant;
+            this.size = store.getNumberOfConditions(task, participant);
+        }
+
+        @Override
+        public Condition get(int index)
+        {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index " + index + " of row with " + size + " conditions");
+
+            return store.getCondition(store.getConditionId(task, participant, index));
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.marcruble.writer;
+
+import com.marcruble.common.*;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Exports an experiment as a table with one row per trial, so it can be
+ * joined with trial logs in analysis tools. Rows are written while going
+ * through the experiment, without building the whole output in memory.
+ */
+public class ExperimentWriter {
+
+    /**
+     * Writes the experiment as CSV in long format, using the factors of each condition as levels.
+     * @param experiment to export
+     * @param file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeLongFormat(Experiment experiment, File file) throws IOException
+    {
+        writeLongFormat(experiment, file, Condition::getFactors);
+    }
+
+    /**
+     * Writes the experiment as CSV in long format with the columns
+     * task, participant, position, condition, level1, ..., levelN.
+     * Each row is only determined once (rows of a lazy task are not resolved a second time):
+     * the trials are written into a temporary file first, which is copied behind the header
+     * once the number of level columns is known, filling missing levels with empty values.
+     * The file is written next to the target and then moved, so it is never left half written.
+     * @param experiment to export
+     * @param file to write to
+     * @param levels function splitting a condition into its factor levels, e.g. by "_"
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeLongFormat(Experiment experiment, File file, Function<Condition, String[]> levels)
+            throws IOException
+    {
+        Path target = file.toPath().toAbsolutePath();
+        Path trials = target.resolveSibling(target.getFileName() + ".trials.tmp");
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        int depth = 0;
+
+        try {
+            // one line per trial, with as many level columns as the condition has
+            try (Writer writer = Files.newBufferedWriter(trials, StandardCharsets.UTF_8))
+            {
+                List<Task> tasks = experiment.getTasks();
+
+                for (int t = 0; t < tasks.size(); t++)
+                {
+                    Task task = tasks.get(t);
+
+                    for (int p = 0; p < task.getNumberOfRows(); p++)
+                    {
+                        List<Condition> conditions = task.getConditions(p);
+
+                        for (int i = 0; i < conditions.size(); i++)
+                        {
+                            Condition condition = conditions.get(i);
+                            String[] values = levels.apply(condition);
+                            depth = Math.max(depth, values.length);
+
+                            writer.write(Integer.toString(t + 1));
+                            writer.write(',');
+                            writer.write(Integer.toString(p));
+                            writer.write(',');
+                            writer.write(Integer.toString(i));
+                            writer.write(',');
+                            writer.write(escape(condition.getId()));
+                            writeLevels(writer, values, values.length);
+                            writer.write('\n');
+                        }
+                    }
+                }
+            }
+
+            try (Reader reader = Files.newBufferedReader(trials, StandardCharsets.UTF_8);
+                 Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+            {
+                // header
+                writer.write("task,participant,position,condition");
+                for (int l = 1; l <= depth; l++)
+                    writer.write(",level" + l);
+                writer.write("\n");
+
+                copyPadded(reader, writer, 4 + depth);
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(trials);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Copies CSV lines, adding empty values at the end of each line which has less than the given
+     * number of columns. Commas and line breaks within quoted values are not counted.
+     * @param reader to read the lines from
+     * @param writer to write the lines to
+     * @param columns number of columns of each line
+     * @throws IOException if reading or writing fails
+     */
+    private static void copyPadded(Reader reader, Writer writer, int columns) throws IOException
+    {
+        int commas = 0;
+        boolean quoted = false;
+        int c;
+
+        while ((c = reader.read()) >= 0)
+        {
+            if (c == '"')
+                quoted = !quoted;
+            else if (c == ',' && !quoted)
+                commas++;
+            else if (c == '\n' && !quoted)
+            {
+                for (int k = commas + 1; k < columns; k++)
+                    writer.write(',');
+
+                commas = 0;
+            }
+
+            writer.write(c);
+        }
+    }
+
+    /**
+     * Writes the experiment in columnar layout into a directory, using the factors of each condition as levels.
+     * @param experiment to export
+     * @param directory to write the files to, created if missing
+     * @throws IOException if a file cannot be written
+     */
+    public static void writeColumnar(Experiment experiment, File directory) throws IOException
+    {
+        writeColumnar(experiment, directory, Condition::getFactors);
+    }
+
+    /**
+     * Writes the experiment in columnar layout into a directory. The columns task, participant,
+     * position and condition are written as binary files of little-endian 32-bit integers
+     * (e.g. numpy.fromfile(path, dtype="<i4") or readBin(path, "integer", size = 4, endian = "little") in R).
+     * The condition column contains codes into the dictionary conditions.csv with the columns
+     * code, condition, level1, ..., levelN.
+     * @param experiment to export
+     * @param directory to write the files to, created if missing
+     * @param levels function splitting a condition into its factor levels, e.g. by "_"
+     * @throws IOException if a file cannot be written
+     */
+    public static void writeColumnar(Experiment experiment, File directory, Function<Condition, String[]> levels)
+            throws IOException
+    {
+        Files.createDirectories(directory.toPath());
+
+        // dictionary of conditions in order of first appearance
+        Map<String, Integer> codes = new HashMap<>();
+        List<Condition> dictionary = new ArrayList<>();
+
+        try (IntColumnWriter taskColumn = new IntColumnWriter(new File(directory, "task.bin"));
+             IntColumnWriter participantColumn = new IntColumnWriter(new File(directory, "participant.bin"));
+             IntColumnWriter positionColumn = new IntColumnWriter(new File(directory, "position.bin"));
+             IntColumnWriter conditionColumn = new IntColumnWriter(new File(directory, "condition.bin")))
+        {
+            List<Task> tasks = experiment.getTasks();
+
+            for (int t = 0; t < tasks.size(); t++)
+            {
+                Task task = tasks.get(t);
+
+                for (int p = 0; p < task.getNumberOfRows(); p++)
+                {
+                    List<Condition> conditions = task.getConditions(p);
+
+                    for (int i = 0; i < conditions.size(); i++)
+                    {
+                        Condition condition = conditions.get(i);
+                        Integer code = codes.get(condition.getId());
+
+                        if (code == null)
+                        {
+                            code = dictionary.size();
+                            codes.put(condition.getId(), code);
+                            dictionary.add(condition);
+                        }
+
+                        taskColumn.write(t + 1);
+                        participantColumn.write(p);
+                        positionColumn.write(i);
+                        conditionColumn.write(code);
+                    }
+                }
+            }
+        }
+
+        // write the dictionary, it only contains distinct conditions
+        int depth = 0;
+        for (Condition condition : dictionary)
+            depth = Math.max(depth, levels.apply(condition).length);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                new File(directory, "conditions.csv").toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write("code,condition");
+            for (int l = 1; l <= depth; l++)
+                writer.write(",level" + l);
+            writer.write("\n");
+
+            for (int code = 0; code < dictionary.size(); code++)
+            {
+                Condition condition = dictionary.get(code);
+
+                writer.write(Integer.toString(code));
+                writer.write(',');
+                writer.write(escape(condition.getId()));
+                writeLevels(writer, levels.apply(condition), depth);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the given levels as columns, filling missing ones with empty values.
+     * @param writer to write to
+     * @param values levels of a condition
+     * @param depth number of level columns
+     * @throws IOException if writing fails
+     */
+    private static void writeLevels(Writer writer, String[] values, int depth) throws IOException
+    {
+        for (int l = 0; l < depth; l++)
+        {
+            writer.write(',');
+
+            if (l < values.length)
+                writer.write(escape(values[l]));
+        }
+    }
+
+    /**
+     * Quotes a CSV value if necessary.
+     * @param value to write
+     * @return value safe to use in a CSV column
+     */
+    private static String escape(String value)
+    {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Writes a column of integers through a fixed buffer.
+     */
+    private static class IntColumnWriter implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        IntColumnWriter(File file) throws IOException
+        {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int value) throws IOException
+        {
+            if (!buffer.hasRemaining())
+                flush();
+
+            buffer.putInt(value);
+        }
+
+        private void flush() throws IOException
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
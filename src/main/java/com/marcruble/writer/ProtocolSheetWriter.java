@@ -0,0 +1,62 @@
+package com.marcruble.writer;
+
+import com.marcruble.common.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Renders the protocol sheets of a study, one per participant, as given by
+ * {@link Experiment#toString(int)}. Sheets are rendered in parallel, conditions
+ * are rendered with the renderer installed by {@link Condition#setRenderer(ConditionRenderer)}.
+ */
+public class ProtocolSheetWriter {
+
+    /**
+     * Renders the sheets of all participants.
+     * @param experiment to render
+     * @return one sheet per participant, in order
+     */
+    public static List<String> render(Experiment experiment)
+    {
+        return IntStream.range(0, experiment.getNumberOfParticipants())
+                .parallel()
+                .mapToObj(experiment::toString)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Renders the sheets of all participants and writes each into its own file participant_<number>.txt.
+     * @param experiment to render
+     * @param directory to write the sheets to, created if missing
+     * @return number of written sheets
+     * @throws IOException if a sheet cannot be written
+     */
+    public static int write(Experiment experiment, File directory) throws IOException
+    {
+        Files.createDirectories(directory.toPath());
+        int participants = experiment.getNumberOfParticipants();
+
+        try {
+            IntStream.range(0, participants).parallel().forEach(p -> {
+                File file = new File(directory, "participant_" + p + ".txt");
+
+                try {
+                    Files.writeString(file.toPath(), experiment.toString(p), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return participants;
+    }
+}
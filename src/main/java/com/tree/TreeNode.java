@@ -1,79 +0,0 @@
-package com.tree;
-
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-
-public class TreeNode<T> implements Iterable<TreeNode<T>> {
-
-	public T data;
-	public TreeNode<T> parent;
-	public List<TreeNode<T>> children;
-
-	public boolean isRoot() {
-		return parent == null;
-	}
-
-	public boolean isLeaf() {
-		return children.size() == 0;
-	}
-
-	private List<TreeNode<T>> elementsIndex;
-
-	public TreeNode(T data) {
-		this.data = data;
-		this.children = new LinkedList<TreeNode<T>>();
-		this.elementsIndex = new LinkedList<TreeNode<T>>();
-		this.elementsIndex.add(this);
-	}
-
-	public TreeNode<T> addChild(T child) {
-		TreeNode<T> childNode = new TreeNode<T>(child);
-		childNode.parent = this;
-		this.children.add(childNode);
-		this.registerChildForSearch(childNode);
-		return childNode;
-	}
-
-	/** ADDED by Marc Ruble **/
-	public void addChildNode(TreeNode<T> child) {
-		child.parent = this;
-		this.children.add(child);
-		this.registerChildForSearch(child);
-	}
-
-	public int getLevel() {
-		if (this.isRoot())
-			return 0;
-		else
-			return parent.getLevel() + 1;
-	}
-
-	private void registerChildForSearch(TreeNode<T> node) {
-		elementsIndex.add(node);
-		if (parent != null)
-			parent.registerChildForSearch(node);
-	}
-
-	public TreeNode<T> findTreeNode(Comparable<T> cmp) {
-		for (TreeNode<T> element : this.elementsIndex) {
-			T elData = element.data;
-			if (cmp.compareTo(elData) == 0)
-				return element;
-		}
-
-		return null;
-	}
-
-	@Override
-	public String toString() {
-		return data != null ? data.toString() : "[data null]";
-	}
-
-	@Override
-	public Iterator<TreeNode<T>> iterator() {
-		TreeNodeIter<T> iter = new TreeNodeIter<T>(this);
-		return iter;
-	}
-
-}